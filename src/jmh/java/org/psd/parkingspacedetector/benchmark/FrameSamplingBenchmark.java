@@ -0,0 +1,143 @@
+package org.psd.parkingspacedetector.benchmark;
+
+import nu.pattern.OpenCV;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Point;
+import org.opencv.core.Scalar;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+import org.opencv.videoio.VideoCapture;
+import org.opencv.videoio.VideoWriter;
+import org.opencv.videoio.Videoio;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.psd.parkingspacedetector.enums.EnumFrameSampling;
+import org.psd.parkingspacedetector.service.metrics.PipelineMeters;
+import org.psd.parkingspacedetector.service.pipeline.SampledFrameReader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to pass through a whole video while sampling one frame every
+ * {@code intervalSeconds}: READ decodes every frame like the annotated
+ * video pipeline, GRAB and SEEK are the {@link SampledFrameReader} modes.
+ * Without {@code -p video=<path>} a synthetic 720p MJPG clip is used, where
+ * every frame is a keyframe; pass a real H.264 recording to see SEEK on a
+ * long GOP.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FrameSamplingBenchmark {
+
+    private static final int FRAME_WIDTH = 1280;
+    private static final int FRAME_HEIGHT = 720;
+    private static final double FPS = 25;
+    private static final int FRAME_COUNT = 750;
+
+    @Param({"READ", "GRAB", "SEEK"})
+    public String reader;
+
+    @Param({"1.5"})
+    public double intervalSeconds;
+
+    @Param({""})
+    public String video;
+
+    private Path path;
+    private boolean generated;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        OpenCV.loadLocally();
+        if (video.isEmpty()) {
+            path = writeSyntheticVideo();
+            generated = true;
+        } else {
+            path = Path.of(video);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (generated) {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Benchmark
+    public long sampleVideo(Blackhole blackhole) {
+        VideoCapture capture = new VideoCapture(path.toString());
+        try {
+            int frameInterval = Math.max(1, (int) (capture.get(Videoio.CAP_PROP_FPS) * intervalSeconds));
+            if (reader.equals("READ")) {
+                return readEveryFrame(capture, frameInterval, blackhole);
+            }
+            return new SampledFrameReader(capture, frameInterval, EnumFrameSampling.valueOf(reader), PipelineMeters.NONE)
+                    .run((frameIndex, frame) -> blackhole.consume(frame.get(0, 0)), blackhole::consume);
+        } finally {
+            capture.release();
+        }
+    }
+
+    private static long readEveryFrame(VideoCapture capture, int frameInterval, Blackhole blackhole) {
+        Mat frame = new Mat();
+        try {
+            long samples = 0;
+            for (long frameIndex = 0; capture.read(frame); frameIndex++) {
+                if (frameIndex % frameInterval == 0) {
+                    blackhole.consume(frame.get(0, 0));
+                    samples++;
+                }
+            }
+            return samples;
+        } finally {
+            frame.release();
+        }
+    }
+
+    private static Path writeSyntheticVideo() throws IOException {
+        Path output = Files.createTempFile("frame-sampling", ".avi");
+        VideoWriter writer = new VideoWriter(output.toString(), VideoWriter.fourcc('M', 'J', 'P', 'G'), FPS,
+                new Size(FRAME_WIDTH, FRAME_HEIGHT));
+        if (!writer.isOpened()) {
+            throw new IOException("Failed to create benchmark video.");
+        }
+        Mat background = new Mat(FRAME_HEIGHT, FRAME_WIDTH, CvType.CV_8UC3);
+        Mat frame = new Mat();
+        try {
+            Core.randu(background, 60, 120);
+            for (int i = 0; i < FRAME_COUNT; i++) {
+                background.copyTo(frame);
+                int x = (i * 4) % (FRAME_WIDTH - 200);
+                Imgproc.rectangle(frame, new Point(x, 300), new Point(x + 200, 400), new Scalar(40, 40, 200), -1);
+                writer.write(frame);
+            }
+        } finally {
+            writer.release();
+            background.release();
+            frame.release();
+        }
+        return output;
+    }
+}
@@ -0,0 +1,85 @@
+package org.psd.parkingspacedetector.benchmark;
+
+import org.opencv.core.Mat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.psd.parkingspacedetector.service.FramePredictions;
+import org.psd.parkingspacedetector.service.feature.FeatureExtractor;
+import org.psd.parkingspacedetector.service.feature.PixelBuffer;
+import org.psd.parkingspacedetector.service.gate.SlotChangeGate;
+import org.psd.parkingspacedetector.service.mat.MatScope;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stages of classifying one analysed video frame, from normalization to the
+ * SVM decision, and the whole frame with and without the change gate. Run
+ * with {@code -prof gc} to see the allocation rate of each stage.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PipelineBenchmark {
+
+    private final PixelBuffer pixelBuffer = new PixelBuffer();
+    private double[] features;
+
+    @Benchmark
+    public Mat normalizeFrame(PipelineState state) {
+        return state.normalizer.normalize(state.frame);
+    }
+
+    @Benchmark
+    public void loadSlotPixels(PipelineState state, Blackhole blackhole) {
+        try (MatScope scope = new MatScope()) {
+            for (int i = 0; i < state.slots; i++) {
+                blackhole.consume(pixelBuffer.load(state.normalizer.slot(state.slotLayout, i, scope)));
+            }
+        }
+    }
+
+    @Benchmark
+    public double[] extractFeatures(PipelineState state) {
+        if (features == null) {
+            features = new double[state.slots * FeatureExtractor.FEATURE_COUNT];
+        }
+        for (int i = 0; i < state.slots; i++) {
+            state.featureExtractor.extract(state.slotPixels[i], features, i * FeatureExtractor.FEATURE_COUNT);
+        }
+        return features;
+    }
+
+    @Benchmark
+    public FramePredictions predictLinear(PipelineState state) {
+        return state.linearPredictor.predict(state.features, state.slots);
+    }
+
+    @Benchmark
+    public FramePredictions predictWeka(PipelineState state) {
+        return state.wekaPredictor.predict(state.features, state.slots);
+    }
+
+    @Benchmark
+    public FramePredictions classifyFrame(PipelineState state) {
+        return state.imageProcessingService.classifyFrame(state.frame, state.slotLayout, state.linearPredictor,
+                SlotChangeGate.disabled(state.slots), state.normalizer);
+    }
+
+    // the frame never changes, so this measures the gate's per frame cost plus its periodic refresh
+    @Benchmark
+    public FramePredictions classifyFrameGated(PipelineState state) {
+        return state.imageProcessingService.classifyFrame(state.frame, state.slotLayout, state.linearPredictor,
+                state.changeGate, state.normalizer);
+    }
+}
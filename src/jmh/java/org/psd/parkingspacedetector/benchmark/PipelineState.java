@@ -0,0 +1,164 @@
+package org.psd.parkingspacedetector.benchmark;
+
+import nu.pattern.OpenCV;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Point;
+import org.opencv.core.Scalar;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.psd.parkingspacedetector.configuration.FeatureExtractorConfig;
+import org.psd.parkingspacedetector.dto.request.ParkingSlotDetail;
+import org.psd.parkingspacedetector.dto.request.PointInfo;
+import org.psd.parkingspacedetector.service.FrameClassifiers;
+import org.psd.parkingspacedetector.service.ImageProcessingService;
+import org.psd.parkingspacedetector.service.feature.FeatureExtractor;
+import org.psd.parkingspacedetector.service.feature.FeatureQuantizer;
+import org.psd.parkingspacedetector.service.feature.FrameNormalizer;
+import org.psd.parkingspacedetector.service.feature.PixelBuffer;
+import org.psd.parkingspacedetector.service.gate.SlotChangeGate;
+import org.psd.parkingspacedetector.service.layout.SlotLayout;
+import org.psd.parkingspacedetector.service.mat.MatScope;
+import org.psd.parkingspacedetector.service.svm.SvmPredictor;
+import org.psd.parkingspacedetector.service.svm.WekaSvmPredictor;
+import weka.classifiers.functions.SMO;
+import weka.core.DenseInstance;
+import weka.core.Instances;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A synthetic 1080p frame with a grid of {@code slots} parking slots, every
+ * other one holding a car, and a linear SVM trained on that frame.
+ */
+@State(Scope.Benchmark)
+public class PipelineState {
+
+    static final int FRAME_WIDTH = 1920;
+    static final int FRAME_HEIGHT = 1080;
+    private static final int SLOT_GAP = 4;
+
+    @Param({"10", "100", "500"})
+    public int slots;
+
+    // detector.feature-extractor values, built the way the application builds them
+    @Param({"svd"})
+    public String extractor;
+
+    Mat frame;
+    SlotLayout slotLayout;
+    FrameNormalizer normalizer;
+    FeatureExtractor featureExtractor;
+    ForkJoinPool featureExtractionPool;
+    ImageProcessingService imageProcessingService;
+    PixelBuffer[] slotPixels;
+    double[] features;
+    SvmPredictor linearPredictor;
+    SvmPredictor wekaPredictor;
+    SlotChangeGate changeGate;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        OpenCV.loadLocally();
+        slotLayout = gridLayout(slots);
+        frame = drawFrame(slotLayout);
+        normalizer = new FrameNormalizer(slotLayout);
+        featureExtractor = new FeatureExtractorConfig().featureExtractor(extractor);
+        featureExtractionPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        imageProcessingService = FrameClassifiers.create(featureExtractor, featureExtractionPool);
+
+        normalizer.normalize(frame);
+        slotPixels = new PixelBuffer[slots];
+        features = new double[slots * FeatureExtractor.FEATURE_COUNT];
+        try (MatScope scope = new MatScope()) {
+            for (int i = 0; i < slots; i++) {
+                slotPixels[i] = new PixelBuffer().load(normalizer.slot(slotLayout, i, scope));
+                featureExtractor.extract(slotPixels[i], features, i * FeatureExtractor.FEATURE_COUNT);
+            }
+        }
+        FeatureQuantizer.quantize(features);
+
+        SMO model = train(features, slots);
+        linearPredictor = SvmPredictor.of(model);
+        wekaPredictor = new WekaSvmPredictor(model);
+        changeGate = new SlotChangeGate(slots, 0.05, 20);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        normalizer.close();
+        frame.release();
+        featureExtractionPool.shutdown();
+    }
+
+    private static SlotLayout gridLayout(int slots) {
+        int columns = (int) Math.ceil(Math.sqrt(slots * (double) FRAME_WIDTH / FRAME_HEIGHT));
+        int rows = (slots + columns - 1) / columns;
+        int cellWidth = FRAME_WIDTH / columns;
+        int cellHeight = FRAME_HEIGHT / rows;
+
+        List<ParkingSlotDetail> slotDetails = new ArrayList<>(slots);
+        for (int slot = 0; slot < slots; slot++) {
+            double x = (slot % columns) * cellWidth + SLOT_GAP;
+            double y = (slot / columns) * cellHeight + SLOT_GAP;
+            double width = cellWidth - 2 * SLOT_GAP;
+            double height = cellHeight - 2 * SLOT_GAP;
+            slotDetails.add(new ParkingSlotDetail(slot, null, List.of(
+                    new PointInfo(1, 0.0, 0.0, x, y),
+                    new PointInfo(2, 0.0, 0.0, x + width, y),
+                    new PointInfo(3, 0.0, 0.0, x + width, y + height),
+                    new PointInfo(4, 0.0, 0.0, x, y + height))));
+        }
+        return SlotLayout.fromSlotDetails(slotDetails);
+    }
+
+    private static Mat drawFrame(SlotLayout slotLayout) {
+        Mat frame = new Mat(FRAME_HEIGHT, FRAME_WIDTH, CvType.CV_8UC3);
+        Core.setRNGSeed(3);
+        Core.randn(frame, 95, 10);
+        Imgproc.GaussianBlur(frame, frame, new Size(5, 5), 1.5);
+
+        Random random = new Random(11);
+        for (int slot = 0; slot < slotLayout.size(); slot++) {
+            int x = slotLayout.x(slot);
+            int y = slotLayout.y(slot);
+            int width = slotLayout.width(slot);
+            int height = slotLayout.height(slot);
+            Imgproc.rectangle(frame, new Point(x, y), new Point(x + width, y + height), new Scalar(235, 235, 235), 2);
+            if (isOccupied(slot)) {
+                Scalar color = new Scalar(30 + random.nextInt(150), 30 + random.nextInt(150), 30 + random.nextInt(150));
+                Imgproc.rectangle(frame, new Point(x + width * 0.15, y + height * 0.1),
+                        new Point(x + width * 0.85, y + height * 0.9), color, -1);
+            }
+        }
+        return frame;
+    }
+
+    private static boolean isOccupied(int slot) {
+        return slot % 2 == 1;
+    }
+
+    private static SMO train(double[] features, int slots) throws Exception {
+        Instances data = new Instances("ParkingSlotTrain", new ArrayList<>(ImageProcessingService.createAttributes()), slots);
+        data.setClassIndex(data.numAttributes() - 1);
+        for (int i = 0; i < slots; i++) {
+            double[] values = new double[data.numAttributes()];
+            System.arraycopy(features, i * FeatureExtractor.FEATURE_COUNT, values, 0, FeatureExtractor.FEATURE_COUNT);
+            values[values.length - 1] = data.classAttribute().indexOfValue(isOccupied(i) ? "false" : "true");
+            data.add(new DenseInstance(1.0, values));
+        }
+        SMO model = new SMO();
+        model.buildClassifier(data);
+        return model;
+    }
+}
@@ -2,23 +2,39 @@ package org.psd.parkingspacedetector.api;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
-import org.psd.parkingspacedetector.configuration.MediaConfig;
 import org.psd.parkingspacedetector.dto.response.CoordinatesInfoDTO;
+import org.psd.parkingspacedetector.dto.response.DetectionJobDTO;
 import org.psd.parkingspacedetector.dto.response.GeneralResult;
 import org.psd.parkingspacedetector.dto.response.MediaDTO;
+import org.psd.parkingspacedetector.dto.response.ModelCacheStatsDTO;
+import org.psd.parkingspacedetector.dto.response.NativeMemoryStatsDTO;
 import org.psd.parkingspacedetector.dto.response.ParkingSlotInfoDTO;
-import org.psd.parkingspacedetector.entity.CoordinatesInfo;
+import org.psd.parkingspacedetector.dto.response.UploadSessionDTO;
 import org.psd.parkingspacedetector.entity.Media;
-import org.psd.parkingspacedetector.entity.ParkingSlotInfo;
-import org.psd.parkingspacedetector.enums.EnumMediaType;
+import org.psd.parkingspacedetector.enums.EnumDetectionOutput;
+import org.psd.parkingspacedetector.repository.SlotCoordinateRow;
+import org.psd.parkingspacedetector.service.DetectionProgressListener;
 import org.psd.parkingspacedetector.service.ImageProcessingService;
 import org.psd.parkingspacedetector.service.MediaService;
+import org.psd.parkingspacedetector.service.ParkingSlotService;
+import org.psd.parkingspacedetector.service.SvmModelCache;
+import org.psd.parkingspacedetector.service.job.DetectionJob;
+import org.psd.parkingspacedetector.service.job.DetectionJobService;
+import org.psd.parkingspacedetector.service.mat.NativeMatTracker;
+import org.psd.parkingspacedetector.service.upload.ChunkedUpload;
+import org.psd.parkingspacedetector.service.upload.UploadService;
 
 import java.io.File;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequiredArgsConstructor
@@ -27,8 +43,11 @@ import java.util.List;
 public class MediaAPI {
 
     private final MediaService mediaService;
-    private final MediaConfig mediaConfig;
+    private final ParkingSlotService parkingSlotService;
     private final ImageProcessingService imageProcessingService;
+    private final DetectionJobService detectionJobService;
+    private final SvmModelCache svmModelCache;
+    private final UploadService uploadService;
 
     @GetMapping("/type/{mediaTypeId}")
     public ResponseEntity<List<MediaDTO>> getTopFiveMediasByTypeId(@PathVariable Long mediaTypeId) {
@@ -51,8 +70,9 @@ public class MediaAPI {
 
     @GetMapping("/getParkingSlotDetectorResult")
     public ResponseEntity<GeneralResult> getParkingSlotDetectorResult(@RequestParam Long mediaId,
-                                                                      @RequestParam Long modelId) {
-        File resultFile = imageProcessingService.getParkingSlotDetectorResult(mediaId, modelId);
+                                                                      @RequestParam Long modelId,
+                                                                      @RequestParam(defaultValue = "VIDEO") EnumDetectionOutput output) {
+        File resultFile = imageProcessingService.getParkingSlotDetectorResult(mediaId, modelId, output, DetectionProgressListener.NONE);
         if (resultFile == null || !resultFile.exists()) {
             throw new RuntimeException("Result file generation failed.");
         }
@@ -65,6 +85,37 @@ public class MediaAPI {
         }
     }
 
+    @PostMapping("/detection-jobs")
+    public ResponseEntity<GeneralResult> submitDetectionJob(@RequestParam Long mediaId,
+                                                            @RequestParam Long modelId,
+                                                            @RequestParam(defaultValue = "VIDEO") EnumDetectionOutput output) {
+        try {
+            DetectionJob job = detectionJobService.submit(mediaId, modelId, output);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(new GeneralResult(job.getId(), null, "Detection job queued."));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .body(new GeneralResult(-1L, null, "Detection queue is full, please try again later."));
+        }
+    }
+
+    @GetMapping("/detection-jobs/{jobId}")
+    public ResponseEntity<DetectionJobDTO> getDetectionJob(@PathVariable Long jobId) {
+        return detectionJobService.getJob(jobId)
+                .map(DetectionJob::toDto)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/model-cache")
+    public ResponseEntity<ModelCacheStatsDTO> getModelCacheStats() {
+        return ResponseEntity.ok(svmModelCache.getStats());
+    }
+
+    @GetMapping("/native-memory")
+    public ResponseEntity<NativeMemoryStatsDTO> getNativeMemoryStats() {
+        return ResponseEntity.ok(NativeMatTracker.getStats());
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<MediaDTO> getMediaById(@PathVariable Long id) {
         return mediaService.getMediaById(id)
@@ -84,9 +135,19 @@ public class MediaAPI {
     }
 
     private MediaDTO convertToDtoFullData(Media media) {
-        List<ParkingSlotInfoDTO> parkingSlotInfos = media.getParkingSlotInfos().stream()
-                .map(this::convertToParkingSlotInfoDto)
-                .toList();
+        List<ParkingSlotInfoDTO> parkingSlotInfos = new ArrayList<>();
+        List<CoordinatesInfoDTO> coordinatesInfos = null;
+        Long previousSlotId = null;
+        for (SlotCoordinateRow row : parkingSlotService.getLayoutRows(media.getId())) {
+            if (!row.slotId().equals(previousSlotId)) {
+                coordinatesInfos = new ArrayList<>();
+                parkingSlotInfos.add(new ParkingSlotInfoDTO(row.isEmpty(), coordinatesInfos));
+                previousSlotId = row.slotId();
+            }
+            if (row.pointOrder() != null) {
+                coordinatesInfos.add(new CoordinatesInfoDTO(row.pointOrder(), row.x(), row.y(), row.realX(), row.realY()));
+            }
+        }
         return new MediaDTO(
                 media.getId(),
                 media.getRefId(),
@@ -96,39 +157,14 @@ public class MediaAPI {
         );
     }
 
-    private ParkingSlotInfoDTO convertToParkingSlotInfoDto(ParkingSlotInfo parkingSlotInfo) {
-        List<CoordinatesInfoDTO> coordinatesInfos = parkingSlotInfo.getCoordinatesInfos().stream()
-                .map(this::convertToCoordinatesInfoDto)
-                .toList();
-
-        return new ParkingSlotInfoDTO(
-                parkingSlotInfo.getIsEmpty(),
-                coordinatesInfos
-        );
-    }
-
-    private CoordinatesInfoDTO convertToCoordinatesInfoDto(CoordinatesInfo coordinatesInfo) {
-        return new CoordinatesInfoDTO(
-                coordinatesInfo.getPointOrder(),
-                coordinatesInfo.getX(),
-                coordinatesInfo.getY(),
-                coordinatesInfo.getRealX(),
-                coordinatesInfo.getRealY()
-        );
-    }
-
     @PostMapping("/upload")
     public ResponseEntity<GeneralResult> upload(@RequestParam("file") MultipartFile file) {
         if (file.isEmpty()) {
             return ResponseEntity.badRequest().body(new GeneralResult(-1L, "", "Please select a file to upload."));
         }
 
-        try {
-            File destinationFile = new File(mediaConfig.getUploadBaseDir() + File.separator + file.getOriginalFilename());
-            file.transferTo(destinationFile);
-            Media media = mediaService.save(destinationFile);
-            GeneralResult result = new GeneralResult(media.getId(), media.getPath(), "File uploaded successfully.");
-            return ResponseEntity.ok(result);
+        try (InputStream content = file.getInputStream()) {
+            return ResponseEntity.ok(toUploadResult(uploadService.store(file.getOriginalFilename(), null, content)));
         } catch (Exception e) {
             return ResponseEntity.status(500).body(new GeneralResult(-1L, null, "Failed to upload file: " + e.getMessage()));
         }
@@ -142,17 +178,97 @@ public class MediaAPI {
             return ResponseEntity.badRequest().body(new GeneralResult(-1L, "", "Uploaded file is not a valid video format."));
         }
 
+        try (InputStream content = file.getInputStream()) {
+            return ResponseEntity.ok(toUploadResult(uploadService.store(file.getOriginalFilename(), refId, content)));
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body(new GeneralResult(-1L, null, "Failed to upload file: " + e.getMessage()));
+        }
+    }
+
+    @PutMapping(value = "/upload-stream", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<GeneralResult> uploadStream(@RequestParam String fileName,
+                                                      @RequestParam(required = false) Long refId,
+                                                      HttpServletRequest request) {
+        try (InputStream content = request.getInputStream()) {
+            return ResponseEntity.ok(toUploadResult(uploadService.store(fileName, refId, content)));
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body(new GeneralResult(-1L, null, "Failed to upload file: " + e.getMessage()));
+        }
+    }
+
+    @PostMapping("/uploads")
+    public ResponseEntity<UploadSessionDTO> beginUpload(@RequestParam String fileName,
+                                                        @RequestParam(required = false) Long refId,
+                                                        @RequestParam(required = false) Long size) {
         try {
-            File destinationFile = new File(mediaConfig.getUploadBaseDir() + File.separator + file.getOriginalFilename());
-            file.transferTo(destinationFile);
-            Media media = mediaService.saveByMediaTypeAndRefId(destinationFile, EnumMediaType.VIDEO, refId);
-            GeneralResult result = new GeneralResult(media.getId(), media.getPath(), "File uploaded successfully.");
-            return ResponseEntity.ok(result);
+            ChunkedUpload upload = uploadService.begin(fileName, refId, size);
+            return ResponseEntity.status(HttpStatus.CREATED).body(uploadService.toDto(upload));
+        } catch (Exception e) {
+            log.error("Failed to begin upload of {}", fileName, e);
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/uploads/{uploadId}")
+    public ResponseEntity<UploadSessionDTO> getUpload(@PathVariable String uploadId) {
+        return uploadService.getUpload(uploadId)
+                .map(uploadService::toDto)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @PutMapping(value = "/uploads/{uploadId}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<UploadSessionDTO> appendUpload(@PathVariable String uploadId,
+                                                         @RequestParam long offset,
+                                                         HttpServletRequest request) {
+        ChunkedUpload upload = uploadService.getUpload(uploadId).orElse(null);
+        if (upload == null) {
+            return ResponseEntity.notFound().build();
+        }
+        try (InputStream content = request.getInputStream()) {
+            if (!uploadService.append(upload, offset, content)) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(uploadService.toDto(upload));
+            }
+            return ResponseEntity.ok(uploadService.toDto(upload));
+        } catch (Exception e) {
+            log.warn("Chunk of upload {} interrupted at {} bytes: {}", uploadId, upload.getReceived(), e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(uploadService.toDto(upload));
+        }
+    }
+
+    @PostMapping("/uploads/{uploadId}/complete")
+    public ResponseEntity<GeneralResult> completeUpload(@PathVariable String uploadId) {
+        ChunkedUpload upload = uploadService.getUpload(uploadId).orElse(null);
+        if (upload == null) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            return ResponseEntity.ok(toUploadResult(uploadService.complete(upload)));
         } catch (Exception e) {
             return ResponseEntity.status(500).body(new GeneralResult(-1L, null, "Failed to upload file: " + e.getMessage()));
         }
     }
 
+    @DeleteMapping("/uploads/{uploadId}")
+    public ResponseEntity<GeneralResult> abortUpload(@PathVariable String uploadId) {
+        ChunkedUpload upload = uploadService.getUpload(uploadId).orElse(null);
+        if (upload == null) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            uploadService.abort(upload);
+            return ResponseEntity.ok(new GeneralResult(null, null, "Upload aborted."));
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body(new GeneralResult(-1L, null, "Failed to abort upload: " + e.getMessage()));
+        }
+    }
+
+    private GeneralResult toUploadResult(UploadService.UploadResult upload) {
+        Media media = upload.media();
+        String message = upload.duplicate() ? "File was already uploaded." : "File uploaded successfully.";
+        return new GeneralResult(media.getId(), media.getPath(), message);
+    }
+
     private boolean isVideoFile(String contentType) {
         return contentType != null && (contentType.startsWith("video/"));
     }
@@ -0,0 +1,49 @@
+package org.psd.parkingspacedetector.api;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.psd.parkingspacedetector.dto.response.OccupancyIntervalDTO;
+import org.psd.parkingspacedetector.dto.response.SlotUtilizationDTO;
+import org.psd.parkingspacedetector.service.occupancy.OccupancyHistoryService;
+import org.psd.parkingspacedetector.service.stream.OccupancySseBroadcaster;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/occupancy")
+public class OccupancyAPI {
+
+    private final OccupancySseBroadcaster occupancySseBroadcaster;
+    private final OccupancyHistoryService occupancyHistoryService;
+
+    @GetMapping(value = "/{layoutId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(@PathVariable Long layoutId) {
+        return occupancySseBroadcaster.subscribe(layoutId);
+    }
+
+    @GetMapping("/{layoutId}/intervals")
+    public ResponseEntity<List<OccupancyIntervalDTO>> getIntervals(@PathVariable Long layoutId,
+                                                                   @RequestParam long from,
+                                                                   @RequestParam long to,
+                                                                   @RequestParam(required = false) Integer slotIndex) {
+        if (from >= to) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(occupancyHistoryService.getIntervals(layoutId, from, to, slotIndex));
+    }
+
+    @GetMapping("/{layoutId}/utilization")
+    public ResponseEntity<List<SlotUtilizationDTO>> getUtilization(@PathVariable Long layoutId,
+                                                                   @RequestParam long from,
+                                                                   @RequestParam long to,
+                                                                   @RequestParam(required = false) Integer slotIndex) {
+        if (from >= to) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(occupancyHistoryService.getUtilization(layoutId, from, to, slotIndex));
+    }
+}
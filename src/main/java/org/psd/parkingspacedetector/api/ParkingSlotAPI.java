@@ -5,15 +5,16 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.psd.parkingspacedetector.dto.request.ParkingBatchTrainingRequest;
 import org.psd.parkingspacedetector.dto.request.ParkingTrainingRequest;
 import org.psd.parkingspacedetector.dto.response.GeneralResult;
-import org.psd.parkingspacedetector.entity.Media;
-import org.psd.parkingspacedetector.enums.EnumMediaType;
-import org.psd.parkingspacedetector.service.ImageProcessingService;
-import org.psd.parkingspacedetector.service.MediaService;
-import org.psd.parkingspacedetector.service.ParkingSlotService;
+import org.psd.parkingspacedetector.dto.response.TrainingJobDTO;
+import org.psd.parkingspacedetector.enums.EnumJobStatus;
+import org.psd.parkingspacedetector.service.job.TrainingJob;
+import org.psd.parkingspacedetector.service.job.TrainingJobService;
 
-import java.io.File;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequiredArgsConstructor
@@ -21,21 +22,66 @@ import java.io.File;
 @Slf4j
 public class ParkingSlotAPI {
 
-    private final ParkingSlotService parkingSlotService;
-    private final MediaService mediaService;
-    private final ImageProcessingService imageProcessingService;
+    private final TrainingJobService trainingJobService;
 
     @PostMapping("/generateModelFile")
     public ResponseEntity<GeneralResult> generateModelFile(@RequestBody ParkingTrainingRequest request) {
+        return trainAndWait(new ParkingBatchTrainingRequest(request.getMediaId(), List.of(request)));
+    }
+
+    @PostMapping("/trainModel")
+    public ResponseEntity<GeneralResult> trainModel(@RequestBody ParkingBatchTrainingRequest request) {
+        return trainAndWait(request);
+    }
+
+    @PostMapping("/training-jobs")
+    public ResponseEntity<GeneralResult> submitTrainingJob(@RequestBody ParkingBatchTrainingRequest request) {
         try {
-            String mediaOriginalPath = parkingSlotService.saveParkingSlotInfos(request);
-            File modelFile = imageProcessingService.generateModelFile(request, mediaOriginalPath);
-            if (modelFile == null || !modelFile.exists()) {
-                throw new RuntimeException("Model file generation failed.");
+            TrainingJob job = trainingJobService.submit(request);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(new GeneralResult(job.getId(), null, "Training job queued."));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .body(new GeneralResult(-1L, null, "Training queue is full, please try again later."));
+        } catch (Exception e) {
+            log.error("Error queueing training job", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new GeneralResult(-1L, null, "Error queueing training job: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/training-jobs/{jobId}")
+    public ResponseEntity<TrainingJobDTO> getTrainingJob(@PathVariable Long jobId) {
+        return trainingJobService.getJob(jobId)
+                .map(TrainingJob::toDto)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping("/training-jobs/{jobId}")
+    public ResponseEntity<TrainingJobDTO> cancelTrainingJob(@PathVariable Long jobId) {
+        return trainingJobService.cancel(jobId)
+                .map(TrainingJob::toDto)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    private ResponseEntity<GeneralResult> trainAndWait(ParkingBatchTrainingRequest request) {
+        try {
+            TrainingJob job = trainingJobService.submit(request);
+            job.awaitFinished();
+            if (job.getStatus() != EnumJobStatus.COMPLETED) {
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body(new GeneralResult(null, null, job.getMessage()));
             }
-            Media trainArffMedia = mediaService.saveByMediaTypeAndRefId(modelFile, EnumMediaType.MODEL, request.getMediaId());
-            GeneralResult result = new GeneralResult(trainArffMedia.getId(), trainArffMedia.getPath(), "Parking model generated successfully.");
+            GeneralResult result = new GeneralResult(job.getResultMediaId(), job.getResultPath(), "Parking model generated successfully.");
             return ResponseEntity.ok(result);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .body(new GeneralResult(null, null, "Training queue is full, please try again later."));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new GeneralResult(null, null, "Interrupted while generating model file."));
         } catch (Exception e) {
             log.error("Error generating model file", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -0,0 +1,76 @@
+package org.psd.parkingspacedetector.api;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.psd.parkingspacedetector.dto.response.GeneralResult;
+import org.psd.parkingspacedetector.dto.response.StreamSessionDTO;
+import org.psd.parkingspacedetector.entity.Media;
+import org.psd.parkingspacedetector.service.MediaService;
+import org.psd.parkingspacedetector.service.stream.StreamSession;
+import org.psd.parkingspacedetector.service.stream.StreamSessionService;
+
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/stream")
+@Slf4j
+public class StreamAPI {
+
+    private final MediaService mediaService;
+    private final StreamSessionService streamSessionService;
+
+    @PostMapping("/register/{refId}")
+    public ResponseEntity<GeneralResult> register(@RequestParam String url, @PathVariable Long refId) {
+        if (url.isBlank()) {
+            return ResponseEntity.badRequest().body(new GeneralResult(-1L, "", "Please provide a stream url or device index."));
+        }
+        Media media = mediaService.saveStream(url, refId);
+        return ResponseEntity.ok(new GeneralResult(media.getId(), media.getPath(), "Stream registered successfully."));
+    }
+
+    @PostMapping("/{streamId}/start")
+    public ResponseEntity<GeneralResult> start(@PathVariable Long streamId,
+                                               @RequestParam Long modelId,
+                                               @RequestParam(required = false) Double sampleIntervalSeconds) {
+        try {
+            streamSessionService.start(streamId, modelId, sampleIntervalSeconds);
+            return ResponseEntity.ok(new GeneralResult(streamId, null, "Stream analysis started."));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .body(new GeneralResult(-1L, null, "Maximum number of streams reached."));
+        } catch (Exception e) {
+            log.error("Error starting stream " + streamId, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new GeneralResult(-1L, null, "Failed to start stream: " + e.getMessage()));
+        }
+    }
+
+    @PostMapping("/{streamId}/stop")
+    public ResponseEntity<GeneralResult> stop(@PathVariable Long streamId) {
+        if (streamSessionService.stop(streamId)) {
+            return ResponseEntity.ok(new GeneralResult(streamId, null, "Stream analysis stopped."));
+        }
+        return ResponseEntity.notFound().build();
+    }
+
+    @GetMapping
+    public ResponseEntity<List<StreamSessionDTO>> getSessions() {
+        List<StreamSessionDTO> sessions = streamSessionService.getSessions().stream()
+                .map(StreamSession::toDto)
+                .toList();
+        return ResponseEntity.ok(sessions);
+    }
+
+    @GetMapping("/{streamId}")
+    public ResponseEntity<StreamSessionDTO> getSession(@PathVariable Long streamId) {
+        return streamSessionService.getSession(streamId)
+                .map(StreamSession::toDto)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,65 @@
+package org.psd.parkingspacedetector.configuration;
+
+import lombok.Getter;
+import org.psd.parkingspacedetector.enums.EnumFrameSampling;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Configuration
+public class DetectorConfig {
+
+    @Value("${detector.pipeline-queue-size:8}")
+    private int pipelineQueueSize;
+
+    @Value("${detector.sampling.interval-seconds:1.5}")
+    private double samplingIntervalSeconds;
+
+    @Value("${detector.sampling.mode:GRAB}")
+    private EnumFrameSampling frameSampling;
+
+    @Value("${detector.jobs.history-size:500}")
+    private int jobHistorySize;
+
+    @Value("${detector.training.queue-size:20}")
+    private int trainingQueueSize;
+
+    @Value("${detector.model-cache-size:16}")
+    private int modelCacheSize;
+
+    @Value("${detector.layout-cache-size:64}")
+    private int layoutCacheSize;
+
+    @Value("${detector.streams.sample-interval-seconds:1.5}")
+    private double streamSampleIntervalSeconds;
+
+    @Value("${detector.streams.reconnect-delay-ms:2000}")
+    private long streamReconnectDelayMillis;
+
+    @Value("${detector.streams.max-failed-attempts:0}")
+    private int streamMaxFailedAttempts;
+
+    @Value("${detector.occupancy.sse-timeout-ms:0}")
+    private long sseTimeoutMillis;
+
+    @Value("${detector.occupancy.record.enabled:true}")
+    private boolean occupancyRecordEnabled;
+
+    @Value("${detector.occupancy.record.queue-size:10000}")
+    private int occupancyRecordQueueSize;
+
+    @Value("${detector.occupancy.record.batch-size:500}")
+    private int occupancyRecordBatchSize;
+
+    @Value("${detector.occupancy.record.linger-ms:1000}")
+    private long occupancyRecordLingerMillis;
+
+    @Value("${detector.change-gate.enabled:false}")
+    private boolean changeGateEnabled;
+
+    @Value("${detector.change-gate.threshold:0.05}")
+    private double changeGateThreshold;
+
+    @Value("${detector.change-gate.refresh-interval:20}")
+    private int changeGateRefreshInterval;
+}
@@ -0,0 +1,77 @@
+package org.psd.parkingspacedetector.configuration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class ExecutorConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool featureExtractionPool(@Value("${detector.feature-threads:0}") int threads) {
+        int parallelism = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        return new ForkJoinPool(parallelism);
+    }
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ThreadPoolExecutor detectionJobExecutor(@Value("${detector.jobs.workers:2}") int workers,
+                                                   @Value("${detector.jobs.queue-size:50}") int queueSize) {
+        return new ThreadPoolExecutor(
+                workers,
+                workers,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                new CustomizableThreadFactory("detection-job-"),
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+    }
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ThreadPoolExecutor trainingJobExecutor(@Value("${detector.training.workers:1}") int workers,
+                                                  @Value("${detector.training.queue-size:20}") int queueSize) {
+        return new ThreadPoolExecutor(
+                workers,
+                workers,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                new CustomizableThreadFactory("training-job-"),
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+    }
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ThreadPoolExecutor streamSessionExecutor(@Value("${detector.streams.max-sessions:16}") int maxSessions) {
+        return new ThreadPoolExecutor(
+                maxSessions,
+                maxSessions,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new SynchronousQueue<>(),
+                new CustomizableThreadFactory("stream-session-"),
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+    }
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ThreadPoolExecutor occupancyPushExecutor(@Value("${detector.occupancy.push-threads:2}") int threads,
+                                                    @Value("${detector.occupancy.push-queue-size:256}") int queueSize) {
+        return new ThreadPoolExecutor(
+                threads,
+                threads,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                new CustomizableThreadFactory("occupancy-push-"),
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+    }
+}
@@ -0,0 +1,19 @@
+package org.psd.parkingspacedetector.configuration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.psd.parkingspacedetector.service.feature.FeatureExtractor;
+import org.psd.parkingspacedetector.service.feature.SvdFeatureExtractor;
+
+@Configuration
+public class FeatureExtractorConfig {
+
+    @Bean
+    public FeatureExtractor featureExtractor(@Value("${detector.feature-extractor:svd}") String extractor) {
+        return switch (extractor) {
+            case "svd" -> new SvdFeatureExtractor();
+            default -> throw new RuntimeException("Unknown feature extractor: " + extractor);
+        };
+    }
+}
@@ -13,4 +13,7 @@ public class MediaConfig {
 
     @Value("${media.upload-base-dir}")
     private String uploadBaseDir;
+
+    @Value("${media.upload-expiry-minutes:1440}")
+    private long uploadExpiryMinutes;
 }
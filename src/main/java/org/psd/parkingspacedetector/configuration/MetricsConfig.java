@@ -0,0 +1,47 @@
+package org.psd.parkingspacedetector.configuration;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder executorQueueMetrics(ThreadPoolExecutor detectionJobExecutor,
+                                            ThreadPoolExecutor trainingJobExecutor,
+                                            ThreadPoolExecutor streamSessionExecutor,
+                                            ThreadPoolExecutor occupancyPushExecutor,
+                                            ForkJoinPool featureExtractionPool) {
+        return registry -> {
+            bindExecutor(registry, "detection-jobs", detectionJobExecutor);
+            bindExecutor(registry, "training-jobs", trainingJobExecutor);
+            bindExecutor(registry, "stream-sessions", streamSessionExecutor);
+            bindExecutor(registry, "occupancy-push", occupancyPushExecutor);
+            Gauge.builder("detector.executor.queued", featureExtractionPool, ForkJoinPool::getQueuedSubmissionCount)
+                    .description("Tasks waiting for a worker")
+                    .tag("executor", "feature-extraction")
+                    .register(registry);
+            Gauge.builder("detector.executor.active", featureExtractionPool, ForkJoinPool::getActiveThreadCount)
+                    .description("Workers running a task")
+                    .tag("executor", "feature-extraction")
+                    .register(registry);
+        };
+    }
+
+    private static void bindExecutor(MeterRegistry registry, String name, ThreadPoolExecutor executor) {
+        Gauge.builder("detector.executor.queued", executor, pool -> pool.getQueue().size())
+                .description("Tasks waiting for a worker")
+                .tag("executor", name)
+                .register(registry);
+        Gauge.builder("detector.executor.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Workers running a task")
+                .tag("executor", name)
+                .register(registry);
+    }
+}
@@ -0,0 +1,19 @@
+package org.psd.parkingspacedetector.dto.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class ParkingBatchTrainingRequest {
+    // media whose slot layout the model is trained for
+    private Long layoutId;
+    // newly labelled images, previously stored samples of the layout are reused as they are
+    private List<ParkingTrainingRequest> images;
+}
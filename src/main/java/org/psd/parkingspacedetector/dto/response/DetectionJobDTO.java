@@ -0,0 +1,19 @@
+package org.psd.parkingspacedetector.dto.response;
+
+import org.psd.parkingspacedetector.enums.EnumDetectionOutput;
+import org.psd.parkingspacedetector.enums.EnumJobStatus;
+
+public record DetectionJobDTO(
+        Long id,
+        Long mediaId,
+        Long modelId,
+        EnumDetectionOutput output,
+        EnumJobStatus status,
+        long framesDone,
+        long totalFrames,
+        double fps,
+        Long etaSeconds,
+        Long resultMediaId,
+        String resultPath,
+        String message) {
+}
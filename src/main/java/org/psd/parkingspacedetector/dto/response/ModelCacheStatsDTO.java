@@ -0,0 +1,8 @@
+package org.psd.parkingspacedetector.dto.response;
+
+public record ModelCacheStatsDTO(
+        long hits,
+        long misses,
+        int size,
+        int maxSize) {
+}
@@ -0,0 +1,8 @@
+package org.psd.parkingspacedetector.dto.response;
+
+public record NativeMemoryStatsDTO(
+        int liveMats,
+        long liveBytes,
+        long allocatedMats,
+        long releasedMats) {
+}
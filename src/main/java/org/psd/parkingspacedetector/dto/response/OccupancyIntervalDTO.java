@@ -0,0 +1,9 @@
+package org.psd.parkingspacedetector.dto.response;
+
+public record OccupancyIntervalDTO(
+        Long sourceId,
+        int slotIndex,
+        boolean occupied,
+        long startedAt,
+        long endedAt) {
+}
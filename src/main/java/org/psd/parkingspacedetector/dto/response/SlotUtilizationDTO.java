@@ -0,0 +1,10 @@
+package org.psd.parkingspacedetector.dto.response;
+
+public record SlotUtilizationDTO(
+        Long sourceId,
+        int slotIndex,
+        long observedMillis,
+        long occupiedMillis,
+        double utilization,
+        int arrivals) {
+}
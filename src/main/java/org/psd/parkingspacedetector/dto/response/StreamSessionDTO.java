@@ -0,0 +1,15 @@
+package org.psd.parkingspacedetector.dto.response;
+
+import java.util.List;
+
+public record StreamSessionDTO(
+        Long streamId,
+        Long modelId,
+        String source,
+        boolean running,
+        boolean connected,
+        long framesAnalysed,
+        Long lastAnalysedAt,
+        int slotCount,
+        List<Integer> occupiedSlotIndexes) {
+}
@@ -0,0 +1,19 @@
+package org.psd.parkingspacedetector.dto.response;
+
+import org.psd.parkingspacedetector.enums.EnumJobStatus;
+import org.psd.parkingspacedetector.enums.EnumTrainingStage;
+
+public record TrainingJobDTO(
+        Long id,
+        Long layoutId,
+        EnumJobStatus status,
+        EnumTrainingStage stage,
+        int newImages,
+        long slotsFeaturized,
+        long totalSlots,
+        long kernelEvaluations,
+        boolean cancelRequested,
+        Long resultMediaId,
+        String resultPath,
+        String message) {
+}
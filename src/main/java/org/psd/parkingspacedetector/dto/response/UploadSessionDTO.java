@@ -0,0 +1,9 @@
+package org.psd.parkingspacedetector.dto.response;
+
+public record UploadSessionDTO(
+        String id,
+        String fileName,
+        Long refId,
+        Long size,
+        long received) {
+}
@@ -30,6 +30,8 @@ public class Media {
     @ManyToOne
     @JoinColumn(name = "media_typeid")
     private MediaType mediaType;
+    @Column(name = "content_hash", columnDefinition = "CHAR(64)")
+    private String contentHash;
     @Column(name = "disabled", columnDefinition = "BIT", nullable = false)
     private boolean disabled;
     @Column(name = "created_at", columnDefinition = "DATETIME", nullable = false)
@@ -0,0 +1,37 @@
+package org.psd.parkingspacedetector.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Start of an occupancy run of one slot as seen by one source. A slot keeps
+ * its state until the next transition, so frames are never stored.
+ * observedAt is epoch millis; for video files it is the upload time of the
+ * file plus the position in the video. A null occupied state marks where
+ * the source stopped being analysed.
+ */
+@Entity(name = "OccupancyTransition")
+@Table(name = "occupancy_transition", schema = "parking",
+        indexes = @Index(name = "ix_occupancy_transition_slot", columnList = "layout_id, source_id, slot_index, observed_at"))
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Data
+public class OccupancyTransition {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(name = "layout_id", columnDefinition = "BigInt", nullable = false)
+    private Long layoutId;
+    @Column(name = "source_id", columnDefinition = "BigInt", nullable = false)
+    private Long sourceId;
+    @Column(name = "slot_index", columnDefinition = "INT", nullable = false)
+    private Integer slotIndex;
+    @Column(name = "occupied", columnDefinition = "BIT")
+    private Boolean occupied;
+    @Column(name = "observed_at", columnDefinition = "BigInt", nullable = false)
+    private Long observedAt;
+}
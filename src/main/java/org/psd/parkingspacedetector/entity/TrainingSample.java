@@ -0,0 +1,39 @@
+package org.psd.parkingspacedetector.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.ZonedDateTime;
+
+@Entity(name = "TrainingSample")
+@Table(name = "training_sample", schema = "parking")
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Data
+public class TrainingSample {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(name = "layout_id", columnDefinition = "BigInt", nullable = false)
+    private Long layoutId;
+    @Column(name = "slot_index", columnDefinition = "INT", nullable = false)
+    private Integer slotIndex;
+    @Column(name = "is_empty", columnDefinition = "BIT")
+    private Boolean isEmpty;
+    @Column(name = "features", columnDefinition = "VARBINARY(72)", nullable = false)
+    private byte[] features;
+    @Column(name = "feature_version", columnDefinition = "VARCHAR(32)")
+    private String featureVersion;
+    @Column(name = "created_at", columnDefinition = "DATETIME", nullable = false)
+    private ZonedDateTime createdAt;
+
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "media_id", nullable = false)
+    private Media media;
+}
@@ -0,0 +1,28 @@
+package org.psd.parkingspacedetector.enums;
+
+public enum EnumDetectionOutput {
+    VIDEO("processed_video_", "mp4"),
+    JSON("detection_result_", "json"),
+    CSV("detection_result_", "csv"),
+    KEYFRAMES("detection_keyframes_", "zip");
+
+    private final String filePrefix;
+    private final String extension;
+
+    EnumDetectionOutput(String filePrefix, String extension) {
+        this.filePrefix = filePrefix;
+        this.extension = extension;
+    }
+
+    public String getFilePrefix() {
+        return filePrefix;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public boolean isHeadless() {
+        return this != VIDEO;
+    }
+}
@@ -0,0 +1,14 @@
+package org.psd.parkingspacedetector.enums;
+
+public enum EnumFrameSampling {
+    /**
+     * Grab every frame and retrieve only sampled ones; works on any source.
+     */
+    GRAB,
+    /**
+     * Seek to each sampled frame, so only the frames from the preceding
+     * keyframe onwards are decoded; falls back to grabbing when the source
+     * cannot seek.
+     */
+    SEEK
+}
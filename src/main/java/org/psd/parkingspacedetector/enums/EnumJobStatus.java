@@ -0,0 +1,9 @@
+package org.psd.parkingspacedetector.enums;
+
+public enum EnumJobStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED,
+    CANCELLED
+}
@@ -0,0 +1,10 @@
+package org.psd.parkingspacedetector.enums;
+
+public enum EnumTrainingStage {
+    QUEUED,
+    SAVING_LABELS,
+    EXTRACTING_FEATURES,
+    BUILDING_MODEL,
+    SAVING_MODEL,
+    DONE
+}
@@ -0,0 +1,44 @@
+package org.psd.parkingspacedetector.repository;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Table and column names of an entity as Hibernate maps them, so JDBC
+ * statements follow the entity mapping and the naming strategy.
+ */
+final class MappedTable {
+
+    private final AbstractEntityPersister persister;
+
+    private MappedTable(AbstractEntityPersister persister) {
+        this.persister = persister;
+    }
+
+    static MappedTable of(EntityManagerFactory entityManagerFactory, Class<?> entityClass) {
+        return new MappedTable((AbstractEntityPersister) entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getMappingMetamodel()
+                .getEntityDescriptor(entityClass));
+    }
+
+    String name() {
+        return persister.getTableName();
+    }
+
+    String id() {
+        return persister.getIdentifierColumnNames()[0];
+    }
+
+    String column(String property) {
+        return persister.getPropertyColumnNames(property)[0];
+    }
+
+    String insert(String... properties) {
+        return "INSERT INTO " + name() + " (" + Arrays.stream(properties).map(this::column).collect(Collectors.joining(", "))
+                + ") VALUES (" + Arrays.stream(properties).map(property -> "?").collect(Collectors.joining(", ")) + ")";
+    }
+}
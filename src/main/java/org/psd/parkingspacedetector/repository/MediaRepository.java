@@ -16,4 +16,6 @@ public interface MediaRepository extends JpaRepository<Media, Long> {
     List<Media> findByRefIdAndDisabledFalse(Long refId);
 
     List<Media> findByRefIdAndDisabledFalseAndMediaType_IdOrderByCreatedAtDesc(Long refId, Long mediaTypeId);
+
+    Optional<Media> findFirstByContentHashAndRefIdAndDisabledFalse(String contentHash, Long refId);
 }
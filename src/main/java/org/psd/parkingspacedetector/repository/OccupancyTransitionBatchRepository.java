@@ -0,0 +1,59 @@
+package org.psd.parkingspacedetector.repository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.psd.parkingspacedetector.entity.OccupancyTransition;
+import org.psd.parkingspacedetector.service.stream.OccupancyEvent;
+
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class OccupancyTransitionBatchRepository {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+
+    private String insertTransition;
+    private String deleteSource;
+    private String insertEndMarkers;
+
+    @PostConstruct
+    public void prepareStatements() {
+        MappedTable transitions = MappedTable.of(entityManagerFactory, OccupancyTransition.class);
+        insertTransition = transitions.insert("layoutId", "sourceId", "slotIndex", "occupied", "observedAt");
+        deleteSource = "DELETE FROM " + transitions.name() + " WHERE " + transitions.column("layoutId") + " = ? AND "
+                + transitions.column("sourceId") + " = ?";
+        String slotColumns = transitions.column("layoutId") + ", " + transitions.column("sourceId") + ", "
+                + transitions.column("slotIndex");
+        insertEndMarkers = "INSERT INTO " + transitions.name() + " (" + slotColumns + ", " + transitions.column("occupied") + ", "
+                + transitions.column("observedAt") + ") SELECT DISTINCT " + slotColumns + ", NULL, ? FROM " + transitions.name()
+                + " WHERE " + transitions.column("layoutId") + " = ? AND " + transitions.column("sourceId") + " = ?";
+    }
+
+    public void insertAll(List<OccupancyEvent> events) {
+        jdbcTemplate.batchUpdate(insertTransition, events, BATCH_SIZE, (ps, event) -> {
+            ps.setLong(1, event.layoutId());
+            ps.setLong(2, event.sourceId());
+            ps.setInt(3, event.slotIndex());
+            ps.setBoolean(4, event.occupied());
+            ps.setLong(5, event.timestamp());
+        });
+    }
+
+    public int deleteSource(Long layoutId, Long sourceId) {
+        return jdbcTemplate.update(deleteSource, layoutId, sourceId);
+    }
+
+    /**
+     * Ends the current run of every slot the source has recorded at endedAt.
+     */
+    public int insertEndMarkers(Long layoutId, Long sourceId, long endedAt) {
+        return jdbcTemplate.update(insertEndMarkers, endedAt, layoutId, sourceId);
+    }
+}
@@ -0,0 +1,23 @@
+package org.psd.parkingspacedetector.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.psd.parkingspacedetector.entity.OccupancyTransition;
+
+import java.util.List;
+
+public interface OccupancyTransitionRepository extends JpaRepository<OccupancyTransition, Long> {
+
+    /**
+     * Transitions inside [from, to) plus, per source and slot, the last one
+     * before from, which gives the state at the start of the range.
+     */
+    @Query("SELECT t FROM OccupancyTransition t WHERE t.layoutId = :layoutId "
+            + "AND (:slotIndex IS NULL OR t.slotIndex = :slotIndex) AND t.observedAt < :to "
+            + "AND (t.observedAt >= :from OR t.observedAt = (SELECT MAX(p.observedAt) FROM OccupancyTransition p "
+            + "WHERE p.layoutId = t.layoutId AND p.sourceId = t.sourceId AND p.slotIndex = t.slotIndex AND p.observedAt < :from)) "
+            + "ORDER BY t.sourceId, t.slotIndex, t.observedAt, t.id")
+    List<OccupancyTransition> findInRange(@Param("layoutId") Long layoutId, @Param("slotIndex") Integer slotIndex,
+                                          @Param("from") long from, @Param("to") long to);
+}
@@ -0,0 +1,120 @@
+package org.psd.parkingspacedetector.repository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.psd.parkingspacedetector.entity.CoordinatesInfo;
+import org.psd.parkingspacedetector.entity.ParkingSlotInfo;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Set-based persistence of training slot layouts. Both tables use identity
+ * keys, which keeps Hibernate from batching inserts, so rows are written
+ * with JDBC batches and slot ids are read back in one query, matched by
+ * slot index. Table and column names come from the entity mapping.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ParkingSlotBatchRepository {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+
+    private String deleteTrainCoordinates;
+    private String deleteTrainSlots;
+    private String insertSlot;
+    private String selectTrainSlotKeys;
+    private String insertCoordinate;
+
+    @PostConstruct
+    public void prepareStatements() {
+        MappedTable slots = MappedTable.of(entityManagerFactory, ParkingSlotInfo.class);
+        MappedTable coordinates = MappedTable.of(entityManagerFactory, CoordinatesInfo.class);
+        String trainSlotsOfMedia = " WHERE " + slots.column("media") + " = ? AND " + slots.column("isTrain") + " = ?";
+
+        deleteTrainCoordinates = "DELETE FROM " + coordinates.name() + " WHERE " + coordinates.column("parkingSlotInfo") + " IN "
+                + "(SELECT " + slots.id() + " FROM " + slots.name() + trainSlotsOfMedia + ")";
+        deleteTrainSlots = "DELETE FROM " + slots.name() + trainSlotsOfMedia;
+        insertSlot = slots.insert("slotIndex", "isTrain", "isEmpty", "createdAt", "media");
+        selectTrainSlotKeys = "SELECT " + slots.id() + ", " + slots.column("slotIndex") + " FROM " + slots.name() + trainSlotsOfMedia;
+        insertCoordinate = coordinates.insert("pointOrder", "x", "y", "realX", "realY", "parkingSlotInfo");
+    }
+
+    public void deleteTrainSlots(Long mediaId) {
+        jdbcTemplate.update(deleteTrainCoordinates, mediaId, true);
+        jdbcTemplate.update(deleteTrainSlots, mediaId, true);
+    }
+
+    /**
+     * Inserts training slots and their coordinates for a media whose
+     * training slots have just been deleted. Slot indexes must be unique
+     * and every value present, as the columns are not nullable.
+     */
+    public void insertTrainSlots(Long mediaId, List<ParkingSlotInfo> parkingSlots) {
+        if (parkingSlots.isEmpty()) {
+            return;
+        }
+        Map<Integer, ParkingSlotInfo> slotsByIndex = indexSlots(parkingSlots);
+        jdbcTemplate.batchUpdate(insertSlot, parkingSlots, BATCH_SIZE, (ps, slot) -> {
+            ps.setInt(1, slot.getSlotIndex());
+            ps.setBoolean(2, true);
+            ps.setBoolean(3, slot.getIsEmpty());
+            ps.setTimestamp(4, Timestamp.from(slot.getCreatedAt().toInstant()));
+            ps.setLong(5, mediaId);
+        });
+
+        List<Map.Entry<Integer, Long>> slotKeys = jdbcTemplate.query(selectTrainSlotKeys,
+                (rs, rowNum) -> Map.entry(rs.getInt(2), rs.getLong(1)), mediaId, true);
+        if (slotKeys.size() != parkingSlots.size()) {
+            throw new RuntimeException("Expected " + parkingSlots.size() + " parking slots but found " + slotKeys.size() + ".");
+        }
+        for (Map.Entry<Integer, Long> slotKey : slotKeys) {
+            ParkingSlotInfo slot = slotsByIndex.remove(slotKey.getKey());
+            if (slot == null) {
+                throw new RuntimeException("Unexpected training slot " + slotKey.getKey() + " of media " + mediaId + ".");
+            }
+            slot.setId(slotKey.getValue());
+        }
+
+        List<CoordinatesInfo> coordinatesInfos = new ArrayList<>();
+        for (ParkingSlotInfo slot : parkingSlots) {
+            coordinatesInfos.addAll(slot.getCoordinatesInfos());
+        }
+        jdbcTemplate.batchUpdate(insertCoordinate, coordinatesInfos, BATCH_SIZE, (ps, point) -> {
+            ps.setInt(1, point.getPointOrder());
+            ps.setDouble(2, point.getX());
+            ps.setDouble(3, point.getY());
+            ps.setDouble(4, point.getRealX());
+            ps.setDouble(5, point.getRealY());
+            ps.setLong(6, point.getParkingSlotInfo().getId());
+        });
+    }
+
+    private static Map<Integer, ParkingSlotInfo> indexSlots(List<ParkingSlotInfo> parkingSlots) {
+        Map<Integer, ParkingSlotInfo> slotsByIndex = new HashMap<>();
+        for (ParkingSlotInfo slot : parkingSlots) {
+            if (slot.getSlotIndex() == null || slot.getIsEmpty() == null || slot.getCreatedAt() == null) {
+                throw new RuntimeException("Parking slot " + slot.getSlotIndex() + " is missing its index, state or creation time.");
+            }
+            if (slotsByIndex.put(slot.getSlotIndex(), slot) != null) {
+                throw new RuntimeException("Parking slot index " + slot.getSlotIndex() + " is used more than once.");
+            }
+            for (CoordinatesInfo point : slot.getCoordinatesInfos()) {
+                if (point.getPointOrder() == null || point.getX() == null || point.getY() == null
+                        || point.getRealX() == null || point.getRealY() == null) {
+                    throw new RuntimeException("Parking slot " + slot.getSlotIndex() + " has a point without coordinates.");
+                }
+            }
+        }
+        return slotsByIndex;
+    }
+}
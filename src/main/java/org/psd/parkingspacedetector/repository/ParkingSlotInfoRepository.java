@@ -1,7 +1,6 @@
 package org.psd.parkingspacedetector.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.psd.parkingspacedetector.entity.ParkingSlotInfo;
@@ -10,9 +9,13 @@ import java.util.List;
 
 public interface ParkingSlotInfoRepository extends JpaRepository<ParkingSlotInfo, Long> {
 
-    @Modifying
-    @Query("DELETE FROM ParkingSlotInfo psi WHERE psi.media.id = :mediaId AND psi.isTrain = true")
-    void deleteByMediaIdAndIsTrain(@Param("mediaId") Long mediaId);
-
     List<ParkingSlotInfo> findAllByMedia_Id(Long mediaId);
+
+    boolean existsByMedia_Id(Long mediaId);
+
+    @Query("SELECT new org.psd.parkingspacedetector.repository.SlotCoordinateRow("
+            + "psi.id, psi.slotIndex, psi.isEmpty, ci.pointOrder, ci.x, ci.y, ci.realX, ci.realY) "
+            + "FROM ParkingSlotInfo psi LEFT JOIN psi.coordinatesInfos ci "
+            + "WHERE psi.media.id = :mediaId ORDER BY psi.id, ci.pointOrder")
+    List<SlotCoordinateRow> findLayoutRowsByMediaId(@Param("mediaId") Long mediaId);
 }
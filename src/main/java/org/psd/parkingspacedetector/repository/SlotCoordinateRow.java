@@ -0,0 +1,16 @@
+package org.psd.parkingspacedetector.repository;
+
+/**
+ * One polygon point of a parking slot, flattened with its slot so a whole
+ * layout is read in one query.
+ */
+public record SlotCoordinateRow(
+        Long slotId,
+        Integer slotIndex,
+        Boolean isEmpty,
+        Integer pointOrder,
+        Double x,
+        Double y,
+        Double realX,
+        Double realY) {
+}
@@ -0,0 +1,23 @@
+package org.psd.parkingspacedetector.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.psd.parkingspacedetector.entity.TrainingSample;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface TrainingSampleRepository extends JpaRepository<TrainingSample, Long> {
+
+    @Modifying
+    @Query("DELETE FROM TrainingSample ts WHERE ts.layoutId = :layoutId AND ts.media.id IN :mediaIds")
+    void deleteByLayoutIdAndMediaIds(@Param("layoutId") Long layoutId, @Param("mediaIds") Collection<Long> mediaIds);
+
+    List<TrainingSample> findAllByLayoutIdOrderByMedia_IdAscSlotIndexAsc(Long layoutId);
+
+    @Query("SELECT DISTINCT ts.media.id FROM TrainingSample ts WHERE ts.layoutId = :layoutId "
+            + "AND (ts.featureVersion IS NULL OR ts.featureVersion <> :featureVersion)")
+    List<Long> findMediaIdsWithOtherFeatureVersion(@Param("layoutId") Long layoutId, @Param("featureVersion") String featureVersion);
+}
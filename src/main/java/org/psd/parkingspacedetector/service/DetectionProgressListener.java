@@ -0,0 +1,9 @@
+package org.psd.parkingspacedetector.service;
+
+public interface DetectionProgressListener {
+
+    DetectionProgressListener NONE = (framesDone, totalFrames) -> {
+    };
+
+    void onProgress(long framesDone, long totalFrames);
+}
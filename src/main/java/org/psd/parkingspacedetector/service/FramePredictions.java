@@ -0,0 +1,16 @@
+package org.psd.parkingspacedetector.service;
+
+public record FramePredictions(
+        double[] predictions,
+        double[] confidences) {
+
+    public static final FramePredictions EMPTY = new FramePredictions(new double[0], new double[0]);
+
+    public int size() {
+        return predictions.length;
+    }
+
+    public boolean isOccupied(int slot) {
+        return predictions[slot] == 1.0;
+    }
+}
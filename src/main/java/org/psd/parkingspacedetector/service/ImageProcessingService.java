@@ -2,34 +2,63 @@ package org.psd.parkingspacedetector.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.math3.linear.MatrixUtils;
-import org.apache.commons.math3.linear.RealMatrix;
-import org.apache.commons.math3.linear.SingularValueDecomposition;
 import org.opencv.core.*;
 import org.opencv.imgcodecs.Imgcodecs;
-import org.opencv.imgproc.Imgproc;
 import org.opencv.videoio.VideoCapture;
 import org.opencv.videoio.VideoWriter;
 import org.opencv.videoio.Videoio;
 import org.springframework.stereotype.Service;
+import org.psd.parkingspacedetector.configuration.DetectorConfig;
 import org.psd.parkingspacedetector.configuration.MediaConfig;
 import org.psd.parkingspacedetector.dto.request.ParkingSlotDetail;
-import org.psd.parkingspacedetector.dto.request.ParkingTrainingRequest;
-import org.psd.parkingspacedetector.dto.request.PointInfo;
-import org.psd.parkingspacedetector.entity.CoordinatesInfo;
 import org.psd.parkingspacedetector.entity.Media;
-import org.psd.parkingspacedetector.entity.ParkingSlotInfo;
+import org.psd.parkingspacedetector.entity.TrainingSample;
+import org.psd.parkingspacedetector.enums.EnumDetectionOutput;
 import org.psd.parkingspacedetector.enums.EnumMediaType;
-import org.psd.parkingspacedetector.repository.ParkingSlotInfoRepository;
+import org.psd.parkingspacedetector.enums.EnumTrainingStage;
+import org.psd.parkingspacedetector.service.feature.FeatureExtractor;
+import org.psd.parkingspacedetector.service.feature.FeatureQuantizer;
+import org.psd.parkingspacedetector.service.feature.FeatureRows;
+import org.psd.parkingspacedetector.service.feature.FrameNormalizer;
+import org.psd.parkingspacedetector.service.feature.PixelBuffer;
+import org.psd.parkingspacedetector.service.gate.SlotChangeGate;
+import org.psd.parkingspacedetector.service.gate.SlotSignature;
+import org.psd.parkingspacedetector.service.layout.SlotLayout;
+import org.psd.parkingspacedetector.service.layout.SlotLayoutCache;
+import org.psd.parkingspacedetector.service.mat.MatScope;
+import org.psd.parkingspacedetector.service.metrics.DetectorMetrics;
+import org.psd.parkingspacedetector.service.metrics.PipelineMeters;
+import org.psd.parkingspacedetector.service.output.CsvResultWriter;
+import org.psd.parkingspacedetector.service.output.DetectionResultWriter;
+import org.psd.parkingspacedetector.service.output.FrameAnnotator;
+import org.psd.parkingspacedetector.service.output.JsonResultWriter;
+import org.psd.parkingspacedetector.service.output.KeyframeArchiveWriter;
+import org.psd.parkingspacedetector.service.pipeline.SampledFrameReader;
+import org.psd.parkingspacedetector.service.pipeline.VideoPipeline;
+import org.psd.parkingspacedetector.service.stream.OccupancyEvent;
+import org.psd.parkingspacedetector.service.stream.OccupancyPublisher;
+import org.psd.parkingspacedetector.service.svm.CompactSvmModel;
+import org.psd.parkingspacedetector.service.svm.ObservedPolyKernel;
+import org.psd.parkingspacedetector.service.svm.SvmPredictor;
 import weka.classifiers.functions.SMO;
 import weka.core.*;
 
 import java.io.File;
-import java.text.DecimalFormat;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @Slf4j
 @Service
@@ -37,87 +66,157 @@ import java.util.Objects;
 public class ImageProcessingService {
 
     private final MediaConfig mediaConfig;
+    private final DetectorConfig detectorConfig;
     private final MediaService mediaService;
-    private final ParkingSlotInfoRepository parkingSlotInfoRepository;
+    private final SlotLayoutCache slotLayoutCache;
+    private final FeatureExtractor featureExtractor;
+    private final ForkJoinPool featureExtractionPool;
+    private final SvmModelCache svmModelCache;
+    private final OccupancyPublisher occupancyPublisher;
+    private final TrainingSampleService trainingSampleService;
+    private final DetectorMetrics detectorMetrics;
+
+    private static final ThreadLocal<PixelBuffer> PIXEL_BUFFER = ThreadLocal.withInitial(PixelBuffer::new);
+
+    public File generateModelFile(Long layoutId, List<TrainingImage> newImages, TrainingProgressListener progressListener) {
+        progressListener.onStage(EnumTrainingStage.EXTRACTING_FEATURES);
+        progressListener.onSlotsScheduled(newImages.stream().mapToInt(image -> image.slotDetails().size()).sum());
+        Map<Long, List<TrainingSample>> newSamples = featureExtractionPool.submit(() -> newImages.parallelStream()
+                        .collect(Collectors.toMap(TrainingImage::mediaId, image -> extractTrainingSamples(image, progressListener),
+                                (first, second) -> second)))
+                .join();
+        checkCancelled(progressListener);
+        trainingSampleService.replaceSamples(layoutId, newSamples);
+
+        String featureVersion = featureExtractor.getVersion();
+        List<TrainingSample> samples = trainingSampleService.getSamples(layoutId);
+        List<TrainingSample> staleSamples = samples.stream()
+                .filter(sample -> !featureVersion.equals(sample.getFeatureVersion()))
+                .toList();
+        if (!staleSamples.isEmpty()) {
+            log.warn("Skipping {} training samples of layout {} extracted with another feature version", staleSamples.size(), layoutId);
+            samples = samples.stream().filter(sample -> featureVersion.equals(sample.getFeatureVersion())).toList();
+        }
+        if (samples.isEmpty()) {
+            throw new RuntimeException("No training samples for layout " + layoutId);
+        }
+        log.info("Training layout {} from {} samples, {} of them extracted from {} new images", layoutId, samples.size(),
+                newSamples.values().stream().mapToInt(List::size).sum(), newImages.size());
+
+        Instances dataset = initializeInstances(createAttributes());
+        double[] features = new double[FeatureExtractor.FEATURE_COUNT];
+        for (TrainingSample sample : samples) {
+            FeatureRows.decode(sample.getFeatures(), features, 0);
+            addInstanceToData(dataset, features, 0, sample.getIsEmpty());
+        }
 
-    public File generateModelFile(ParkingTrainingRequest request, String mediaOriginalPath) {
-        Long mediaId = request.getMediaId();
-        disablePrevTrainModelIfExists(mediaId);
+        return generateModel(dataset, layoutId, progressListener);
+    }
 
-        Mat image = loadImage(mediaOriginalPath);
-        List<Attribute> attributes = createAttributes();
-        Instances dataset = initializeInstances(attributes);
+    private List<TrainingSample> extractTrainingSamples(TrainingImage image, TrainingProgressListener progressListener) {
+        checkCancelled(progressListener);
+        List<ParkingSlotDetail> slotDetails = image.slotDetails();
+        SlotLayout slotLayout = SlotLayout.fromSlotDetails(slotDetails);
+        double[] features;
+        try (MatScope scope = new MatScope(); FrameNormalizer normalizer = new FrameNormalizer(slotLayout)) {
+            normalizer.normalize(loadImage(image.originalPath(), scope));
+            features = extractSlotFeatures(normalizer, slotLayout, scope, progressListener);
+        }
 
-        for (ParkingSlotDetail slotDetail : request.getSlotDetails()) {
-            List<Point> points = extractPoints(slotDetail);
-            Rect rectCrop = createRect(points);
-            Mat croppedImage = new Mat(image, rectCrop);
-            processSlotDetail(slotDetail, croppedImage, dataset);
+        List<TrainingSample> samples = new ArrayList<>(slotDetails.size());
+        for (int i = 0; i < slotDetails.size(); i++) {
+            samples.add(TrainingSample.builder()
+                    .slotIndex(slotDetails.get(i).getIndex())
+                    .isEmpty(slotDetails.get(i).getIsEmpty())
+                    .features(FeatureRows.encode(features, i * FeatureExtractor.FEATURE_COUNT))
+                    .featureVersion(featureExtractor.getVersion())
+                    .build());
         }
+        return samples;
+    }
 
-        return generateModel(dataset, mediaId);
+    private void checkCancelled(TrainingProgressListener progressListener) {
+        if (progressListener.isCancelled()) {
+            throw new CancellationException("Training cancelled.");
+        }
     }
 
-    private File generateModel(Instances dataset, Long mediaId) {
+    private File generateModel(Instances dataset, Long layoutId, TrainingProgressListener progressListener) {
+        String modelFilePath = null;
         try {
             dataset.setClassIndex(dataset.numAttributes() - 1);
 
+            progressListener.onStage(EnumTrainingStage.BUILDING_MODEL);
             SMO svmReg = new SMO();
-            svmReg.buildClassifier(dataset);
-
-            String modelFilePath = mediaConfig.getUploadBaseDir() + File.separator + "ParkingSlotModel_" + mediaId + ".model";
+            ObservedPolyKernel.buildClassifier(svmReg, dataset, progressListener);
+            checkCancelled(progressListener);
+
+            // the previous model is only retired once the new one is saved, see disablePrevTrainModelIfExists
+            progressListener.onStage(EnumTrainingStage.SAVING_MODEL);
+            // unique per model: a mapped compact model cannot be replaced or deleted on Windows while in use
+            modelFilePath = mediaConfig.getUploadBaseDir() + File.separator
+                    + "ParkingSlotModel_" + layoutId + "_" + System.currentTimeMillis() + ".model";
+            exportCompactModel(svmReg, modelFilePath);
             SerializationHelper.write(modelFilePath, svmReg);
 
             return new File(modelFilePath);
+        } catch (CancellationException e) {
+            throw e;
         } catch (Exception e) {
             log.error(e.getMessage());
+            if (modelFilePath != null) {
+                discardModelFile(new File(modelFilePath));
+            }
             return null;
         }
     }
 
-    private void disablePrevTrainModelIfExists(Long refId) {
+    private void exportCompactModel(SMO svmModel, String modelFilePath) throws IOException {
+        Path compactModelPath = Path.of(CompactSvmModel.pathFor(modelFilePath));
+        if (!CompactSvmModel.write(svmModel, compactModelPath)) {
+            log.info("Model {} has no compact form, inference will use Weka.", modelFilePath);
+            Files.deleteIfExists(compactModelPath);
+        }
+    }
+
+    /**
+     * Deletes a model file that never got a media record, along with its compact form.
+     */
+    public void discardModelFile(File modelFile) {
+        try {
+            Files.deleteIfExists(modelFile.toPath());
+            Files.deleteIfExists(Path.of(CompactSvmModel.pathFor(modelFile.getPath())));
+        } catch (IOException e) {
+            log.error("Failed to delete model file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Disables every model of the layout except {@code currentModelId}. Called
+     * after the new model is saved, so the layout always has a usable model.
+     */
+    public void disablePrevTrainModelIfExists(Long refId, Long currentModelId) {
         List<Media> mediaByRefId = mediaService.getMediaByRefIdAndMediaTypeId(refId, EnumMediaType.MODEL.getId());
-        mediaByRefId.forEach(media -> {
-            try {
-                mediaService.disableMedia(media.getId());
-            } catch (Exception e) {
-                log.error("Failed to disable media with ID: " + media.getId(), e);
-            }
-        });
+        mediaByRefId.stream()
+                .filter(media -> !media.getId().equals(currentModelId))
+                .forEach(media -> {
+                    try {
+                        mediaService.disableMedia(media.getId());
+                    } catch (Exception e) {
+                        log.error("Failed to disable media with ID: " + media.getId(), e);
+                    }
+                });
     }
 
-    private Mat loadImage(String mediaOriginalPath) {
-        Mat image = Imgcodecs.imread(mediaOriginalPath);
+    private Mat loadImage(String mediaOriginalPath, MatScope scope) {
+        Mat image = scope.track(Imgcodecs.imread(mediaOriginalPath));
         if (image.empty()) {
             throw new RuntimeException("Failed to load image.");
         }
-        return getNormalizedImage(image);
+        return image;
     }
 
-    private static Mat getNormalizedImage(Mat image) {
-        Mat grayImage = new Mat();
-        Imgproc.cvtColor(image, grayImage, Imgproc.COLOR_BGR2GRAY);
-
-        Mat blurredImage = new Mat();
-        Imgproc.GaussianBlur(grayImage, blurredImage, new org.opencv.core.Size(3, 3), 1);
-
-        Mat thresholdImage = new Mat();
-        Imgproc.adaptiveThreshold(
-                blurredImage,
-                thresholdImage,
-                255,
-                Imgproc.ADAPTIVE_THRESH_GAUSSIAN_C,
-                Imgproc.THRESH_BINARY_INV,
-                25,
-                16
-        );
-
-        Mat medianBlurredImage = new Mat();
-        Imgproc.medianBlur(thresholdImage, medianBlurredImage, 5);
-        return medianBlurredImage;
-    }
-
-    private List<Attribute> createAttributes() {
+    public static List<Attribute> createAttributes() {
         List<Attribute> attributes = new ArrayList<>();
         attributes.add(new Attribute("NW"));
         attributes.add(new Attribute("N"));
@@ -138,139 +237,49 @@ public class ImageProcessingService {
         return data;
     }
 
-    private void processSlotDetail(ParkingSlotDetail slotDetail, Mat croppedImage, Instances data) {
-        double[][] matrix = convertImageToMatrix(croppedImage);
-        String[] principalComponents = performPCA(matrix);
-
-        addInstanceToData(data, principalComponents, slotDetail);
+    private double[] extractSlotFeatures(FrameNormalizer normalizer, SlotLayout slotLayout, MatScope scope,
+                                         TrainingProgressListener progressListener) {
+        double[] features = new double[slotLayout.size() * FeatureExtractor.FEATURE_COUNT];
+        featureExtractionPool.submit(() -> IntStream.range(0, slotLayout.size())
+                        .parallel()
+                        .forEach(i -> {
+                            performPCA(normalizer, slotLayout, i, features, i * FeatureExtractor.FEATURE_COUNT, scope);
+                            progressListener.onSlotFeaturized();
+                        }))
+                .join();
+        FeatureQuantizer.quantize(features);
+        return features;
     }
 
-    private double[][] convertImageToMatrix(Mat croppedImage) {
-        int rows = roundToNearestMultipleOfThree(croppedImage.rows());
-        int cols = roundToNearestMultipleOfThree(croppedImage.cols());
-
-        double[][] matrix = new double[rows][cols];
-
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                matrix[i][j] = croppedImage.get(i, j)[0];
-            }
-        }
-
-        return matrix;
+    private PixelBuffer convertImageToMatrix(Mat croppedImage) {
+        return PIXEL_BUFFER.get().load(croppedImage);
     }
 
-    private void addInstanceToData(Instances data, String[] principalComponents, ParkingSlotDetail slotDetail) {
+    private void addInstanceToData(Instances data, double[] principalComponents, int offset, Boolean isEmpty) {
         int numAttributes = data.numAttributes();
-        Instance instance = new DenseInstance(numAttributes);
-        instance.setDataset(data);
-
-        for (int i = 0; i < principalComponents.length; i++) {
-            if (i < numAttributes - 1) {
-                instance.setValue(data.attribute(i), Double.parseDouble(principalComponents[i]));
-            }
-        }
-
-        if (slotDetail.getIsEmpty() != null) {
-            String isEmptyValue = Boolean.TRUE.equals(slotDetail.getIsEmpty()) ? "true" : "false";
-            instance.setValue(data.attribute(numAttributes - 1), isEmptyValue);
+        double[] values = new double[numAttributes];
+        System.arraycopy(principalComponents, offset, values, 0, Math.min(FeatureExtractor.FEATURE_COUNT, numAttributes - 1));
+
+        if (isEmpty != null) {
+            String isEmptyValue = Boolean.TRUE.equals(isEmpty) ? "true" : "false";
+            values[numAttributes - 1] = data.attribute(numAttributes - 1).indexOfValue(isEmptyValue);
+        } else {
+            values[numAttributes - 1] = Utils.missingValue();
         }
 
+        Instance instance = new DenseInstance(1.0, values);
+        instance.setDataset(data);
         data.add(instance);
     }
 
-    private List<Point> extractPoints(ParkingSlotDetail slotDetail) {
-        List<Point> points = new ArrayList<>();
-        for (PointInfo point : slotDetail.getPoints()) {
-            points.add(new Point(point.getRealX().intValue(), point.getRealY().intValue()));
-        }
-        return points;
-    }
-
-    private String[] performPCA(double[][] mainMatrix) {
-        int numSubMatrices = 3 * 3;
-        String[] principalComponents = new String[numSubMatrices];
-
-        int rows = mainMatrix.length;
-        int cols = mainMatrix[0].length;
-
-        int subRows = rows / 3;
-        int subCols = cols / 3;
-
-        int index = -1;
-        for (int mainRow = 0; mainRow < rows; mainRow += subRows) {
-            for (int mainCol = 0; mainCol < cols; mainCol += subCols) {
-                index++;
-                double[][] subMatrixData = new double[subRows][subCols];
-                for (int r = 0; r < subRows && mainRow + r < rows; r++) {
-                    for (int c = 0; c < subCols && mainCol + c < cols; c++) {
-                        subMatrixData[r][c] = mainMatrix[mainRow + r][mainCol + c];
-                    }
-                }
-                if (index >= numSubMatrices) {
-                    log.error("wrong index : " + index);
-                } else {
-                    principalComponents[index] = extractPrincipalComponent(subMatrixData);
-                }
-            }
-        }
-        return principalComponents;
-    }
-
-    private String extractPrincipalComponent(double[][] data) {
-        RealMatrix matrix = MatrixUtils.createRealMatrix(data);
-
-        centralizeMatrix(matrix);
-
-        SingularValueDecomposition svd = new SingularValueDecomposition(matrix);
-        RealMatrix uMatrix = svd.getU();
-
-        double meanValue = calculateMean(uMatrix);
-        return formatMean(meanValue);
+    private void performPCA(FrameNormalizer normalizer, SlotLayout slotLayout, int slot, double[] principalComponents, int offset,
+                            MatScope scope) {
+        Mat croppedImage = normalizer.slot(slotLayout, slot, scope);
+        featureExtractor.extract(convertImageToMatrix(croppedImage), principalComponents, offset);
     }
 
-    private String formatMean(double mean) {
-        DecimalFormat df = new DecimalFormat("#.#######");
-        return df.format(mean);
-    }
-
-    private void centralizeMatrix(RealMatrix matrix) {
-        int columnDimension = matrix.getColumnDimension();
-        int rowDimension = matrix.getRowDimension();
-
-        double[] columnMeans = new double[columnDimension];
-        for (int i = 0; i < columnDimension; i++) {
-            columnMeans[i] = matrix.getColumnVector(i).getL1Norm() / rowDimension;
-        }
-
-        for (int i = 0; i < rowDimension; i++) {
-            for (int j = 0; j < columnDimension; j++) {
-                matrix.setEntry(i, j, matrix.getEntry(i, j) - columnMeans[j]);
-            }
-        }
-    }
-
-    private double calculateMean(RealMatrix uMatrix) {
-        double sum = 0.0;
-        int uRows = uMatrix.getRowDimension();
-        int uCols = uMatrix.getColumnDimension();
-
-        for (int i = 0; i < uRows; i++) {
-            for (int j = 0; j < uCols; j++) {
-                sum += uMatrix.getEntry(i, j);
-            }
-        }
-
-        return sum / (uRows * uCols);
-    }
-
-    private Rect createRect(List<Point> points) {
-        int startX = (int) Math.min(Math.min(points.get(0).x, points.get(1).x), Math.min(points.get(2).x, points.get(3).x));
-        int startY = (int) Math.min(Math.min(points.get(0).y, points.get(1).y), Math.min(points.get(2).y, points.get(3).y));
-        int endX = (int) Math.max(Math.max(points.get(0).x, points.get(1).x), Math.max(points.get(2).x, points.get(3).x));
-        int endY = (int) Math.max(Math.max(points.get(0).y, points.get(1).y), Math.max(points.get(2).y, points.get(3).y));
-
-        return new Rect(startX, startY, endX - startX, endY - startY);
+    public String getFeatureVersion() {
+        return featureExtractor.getVersion();
     }
 
     public static int roundToNearestMultipleOfThree(int num) {
@@ -278,6 +287,11 @@ public class ImageProcessingService {
     }
 
     public File getParkingSlotDetectorResult(Long mediaId, Long modelId) {
+        return getParkingSlotDetectorResult(mediaId, modelId, EnumDetectionOutput.VIDEO, DetectionProgressListener.NONE);
+    }
+
+    public File getParkingSlotDetectorResult(Long mediaId, Long modelId, EnumDetectionOutput output,
+                                             DetectionProgressListener progressListener) {
         Media testMedia = fetchMedia(mediaId, "Test media not found");
         Media model = fetchMedia(modelId, "Related model not found");
 
@@ -286,19 +300,52 @@ public class ImageProcessingService {
         }
 
         Long modelRefId = model.getRefId();
-        List<ParkingSlotInfo> parkingSlotInfoList = fetchParkingSlotInfo(modelRefId);
+        SlotLayout slotLayout = slotLayoutCache.get(modelRefId);
 
-        SMO svmModel = loadSvmModel(model.getOriginalPath());
+        SvmPredictor svmModel = svmModelCache.get(model);
         VideoCapture video = openVideoFile(testMedia.getOriginalPath());
 
-        String outputVideoPath = mediaConfig.getUploadBaseDir() + File.separator + "processed_video_" + modelRefId + ".mp4";
-        VideoWriter videoWriter = initializeVideoWriter(outputVideoPath, video);
-
-        processVideoFrames(video, videoWriter, parkingSlotInfoList, svmModel);
+        String outputPath = mediaConfig.getUploadBaseDir() + File.separator + output.getFilePrefix() + modelRefId + "_" + mediaId
+                + "." + output.getExtension();
+        // files carry no recording time, so their transitions are anchored at the upload time
+        long startedAt = testMedia.getCreatedAt().toInstant().toEpochMilli();
+        double fps = video.get(Videoio.CAP_PROP_FPS);
+        AtomicLong framesRead = new AtomicLong();
+        DetectionProgressListener trackingListener = (framesDone, totalFrames) -> {
+            framesRead.set(framesDone);
+            progressListener.onProgress(framesDone, totalFrames);
+        };
+        occupancyPublisher.onSourceRestarted(modelRefId, mediaId);
+        try {
+            if (output.isHeadless()) {
+                try (DetectionResultWriter resultWriter = createResultWriter(output, Path.of(outputPath), slotLayout)) {
+                    processSampledFrames(video, resultWriter, slotLayout, svmModel, modelRefId, mediaId, startedAt, trackingListener);
+                }
+            } else {
+                VideoWriter videoWriter = initializeVideoWriter(outputPath, video);
+                try {
+                    processVideoFrames(video, videoWriter, slotLayout, svmModel, modelRefId, mediaId, startedAt, trackingListener);
+                } finally {
+                    videoWriter.release();
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write detection result.", e);
+        } finally {
+            video.release();
+            long endedAt = fps > 0 ? startedAt + Math.round(framesRead.get() * 1000 / fps) : startedAt;
+            occupancyPublisher.onSourceStopped(modelRefId, mediaId, endedAt);
+        }
+        return new File(outputPath);
+    }
 
-        video.release();
-        videoWriter.release();
-        return new File(outputVideoPath);
+    private DetectionResultWriter createResultWriter(EnumDetectionOutput output, Path path, SlotLayout slotLayout) throws IOException {
+        return switch (output) {
+            case JSON -> new JsonResultWriter(path, slotLayout);
+            case CSV -> new CsvResultWriter(path, slotLayout);
+            case KEYFRAMES -> new KeyframeArchiveWriter(path, slotLayout);
+            case VIDEO -> throw new IllegalArgumentException("Video output is written by the video pipeline.");
+        };
     }
 
     private Media fetchMedia(Long mediaId, String errorMessage) {
@@ -307,22 +354,6 @@ public class ImageProcessingService {
     }
 
 
-    private List<ParkingSlotInfo> fetchParkingSlotInfo(Long mediaId) {
-        List<ParkingSlotInfo> parkingSlotInfoList = parkingSlotInfoRepository.findAllByMedia_Id(mediaId);
-        if (parkingSlotInfoList.isEmpty()) {
-            throw new RuntimeException("Slot info not found.");
-        }
-        return parkingSlotInfoList;
-    }
-
-    private SMO loadSvmModel(String modelPath) {
-        try {
-            return (SMO) SerializationHelper.read(modelPath);
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to load model.", e);
-        }
-    }
-
     private VideoCapture openVideoFile(String videoPath) {
         VideoCapture video = new VideoCapture(videoPath);
         if (!video.isOpened()) {
@@ -345,77 +376,139 @@ public class ImageProcessingService {
         return videoWriter;
     }
 
-    private void processVideoFrames(VideoCapture video, VideoWriter videoWriter, List<ParkingSlotInfo> parkingSlotInfoList, SMO svmModel) {
-        Mat frame = new Mat();
-        int frameCounter = 0;
-        List<Double> lastPredictions = new ArrayList<>();
-        List<Rect> lastRects = new ArrayList<>();
+    private void processVideoFrames(VideoCapture video, VideoWriter videoWriter, SlotLayout slotLayout, SvmPredictor svmModel,
+                                    Long layoutId, Long sourceId, long startedAt, DetectionProgressListener progressListener) {
+        AtomicReference<FramePredictions> lastPredictions = new AtomicReference<>(FramePredictions.EMPTY);
+        SlotChangeGate changeGate = createChangeGate(slotLayout);
         double fps = video.get(Videoio.CAP_PROP_FPS);
+        int frameInterval = sampleInterval(fps);
+        long totalFrames = (long) video.get(Videoio.CAP_PROP_FRAME_COUNT);
+
+        PipelineMeters meters = detectorMetrics.forLayout(layoutId);
+        VideoPipeline pipeline = new VideoPipeline(video, videoWriter, detectorConfig.getPipelineQueueSize(), meters);
+        try (FrameNormalizer normalizer = new FrameNormalizer(slotLayout)) {
+            pipeline.run((frameIndex, frame) -> {
+                boolean processFrame = (frameIndex % frameInterval == 0);
+
+                if (processFrame) {
+                    FramePredictions predictions = classifyFrame(frame, slotLayout, svmModel, changeGate, normalizer, meters);
+                    long timestamp = startedAt + Math.round(frameIndex * 1000 / fps);
+                    publishOccupancyChanges(slotLayout, lastPredictions.get(), predictions, layoutId, sourceId, timestamp);
+                    lastPredictions.set(predictions);
+                }
 
-        while (video.read(frame)) {
-            boolean processFrame = (frameCounter % (int) (fps * 1.5) == 0);
-            frameCounter++;
-
-            if (processFrame) {
-                lastRects.clear();
-                lastPredictions.clear();
-
-                List<Attribute> attributes = createAttributes();
-                Instances dataset = initializeInstances(attributes);
-                Mat normalizedImage = getNormalizedImage(frame);
+                FrameAnnotator.drawPredictions(frame, slotLayout, lastPredictions.get());
+                progressListener.onProgress(frameIndex + 1, totalFrames);
+            });
+        }
+        log.info("Change gate skipped {} of {} slot classifications of media {}", changeGate.getSlotsEvaluated() - changeGate.getSlotsClassified(),
+                changeGate.getSlotsEvaluated(), sourceId);
+    }
 
-                for (ParkingSlotInfo slotInfo : parkingSlotInfoList) {
-                    ParkingSlotDetail parkingSlotDetail = mapToParkingSlotDetail(slotInfo);
-                    Rect rectCrop = createRect(extractPoints(parkingSlotDetail));
-                    Mat croppedImage = new Mat(normalizedImage, rectCrop);
-                    processSlotDetail(parkingSlotDetail, croppedImage, dataset);
-                    lastRects.add(rectCrop);
+    private void processSampledFrames(VideoCapture video, DetectionResultWriter resultWriter, SlotLayout slotLayout, SvmPredictor svmModel,
+                                      Long layoutId, Long sourceId, long startedAt, DetectionProgressListener progressListener) {
+        AtomicReference<FramePredictions> lastPredictions = new AtomicReference<>(FramePredictions.EMPTY);
+        SlotChangeGate changeGate = createChangeGate(slotLayout);
+        double fps = video.get(Videoio.CAP_PROP_FPS);
+        long totalFrames = (long) video.get(Videoio.CAP_PROP_FRAME_COUNT);
+
+        PipelineMeters meters = detectorMetrics.forLayout(layoutId);
+        SampledFrameReader reader = new SampledFrameReader(video, sampleInterval(fps), detectorConfig.getFrameSampling(), meters);
+        try (FrameNormalizer normalizer = new FrameNormalizer(slotLayout)) {
+            reader.run((frameIndex, frame) -> {
+                FramePredictions predictions = classifyFrame(frame, slotLayout, svmModel, changeGate, normalizer, meters);
+                long timestamp = Math.round(frameIndex * 1000 / fps);
+                boolean changed = publishOccupancyChanges(slotLayout, lastPredictions.get(), predictions, layoutId, sourceId,
+                        startedAt + timestamp);
+                lastPredictions.set(predictions);
+                try {
+                    resultWriter.write(frameIndex, timestamp, frame, predictions, changed);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
                 }
+            }, framesDone -> progressListener.onProgress(framesDone, totalFrames));
+        }
+    }
 
-                classifyInstances(dataset, svmModel, lastPredictions);
-            }
+    private int sampleInterval(double fps) {
+        return Math.max(1, (int) (fps * detectorConfig.getSamplingIntervalSeconds()));
+    }
 
-            drawPredictionsOnFrame(frame, lastRects, lastPredictions);
-            videoWriter.write(frame);
+    public SlotChangeGate createChangeGate(SlotLayout slotLayout) {
+        if (!detectorConfig.isChangeGateEnabled()) {
+            return SlotChangeGate.disabled(slotLayout.size());
         }
+        return new SlotChangeGate(slotLayout.size(), detectorConfig.getChangeGateThreshold(), detectorConfig.getChangeGateRefreshInterval());
     }
 
-    private void classifyInstances(Instances dataset, SMO svmModel, List<Double> predictions) {
-        for (int i = 0; i < dataset.numInstances(); i++) {
-            Instance instance = dataset.instance(i);
-            try {
-                predictions.add(svmModel.classifyInstance(instance));
-            } catch (Exception e) {
-                throw new RuntimeException("Failed to predict using the model.", e);
-            }
+    public FramePredictions classifyFrame(Mat frame, SlotLayout slotLayout, SvmPredictor svmModel) {
+        try (FrameNormalizer normalizer = new FrameNormalizer(slotLayout)) {
+            return classifyFrame(frame, slotLayout, svmModel, SlotChangeGate.disabled(slotLayout.size()), normalizer);
         }
     }
 
-    private void drawPredictionsOnFrame(Mat frame, List<Rect> lastRects, List<Double> lastPredictions) {
-        for (int i = 0; i < lastRects.size(); i++) {
-            Rect slotRect = lastRects.get(i);
-            Scalar color = lastPredictions.get(i).equals(1.0) ? new Scalar(0, 0, 255) : new Scalar(0, 255, 0);
-            Imgproc.rectangle(frame, slotRect.tl(), slotRect.br(), color, 2);
-        }
+    public FramePredictions classifyFrame(Mat frame, SlotLayout slotLayout, SvmPredictor svmModel, SlotChangeGate changeGate,
+                                          FrameNormalizer normalizer) {
+        return classifyFrame(frame, slotLayout, svmModel, changeGate, normalizer, PipelineMeters.NONE);
     }
 
-    private ParkingSlotDetail mapToParkingSlotDetail(ParkingSlotInfo slotInfo) {
-        List<PointInfo> points = slotInfo.getCoordinatesInfos().stream()
-                .map(this::mapToPointInfo)
-                .toList();
+    public FramePredictions classifyFrame(Mat frame, SlotLayout slotLayout, SvmPredictor svmModel, SlotChangeGate changeGate,
+                                          FrameNormalizer normalizer, PipelineMeters meters) {
+        int slotCount = slotLayout.size();
+        float[] signatures = new float[slotCount * SlotSignature.SIZE];
+        boolean[] changed = new boolean[slotCount];
+        double[] features = new double[slotCount * FeatureExtractor.FEATURE_COUNT];
+
+        long start = System.nanoTime();
+        normalizer.normalize(frame);
+        long normalized = System.nanoTime();
+        changeGate.beginFrame();
+        try (MatScope frameScope = new MatScope()) {
+            featureExtractionPool.submit(() -> IntStream.range(0, slotCount)
+                            .parallel()
+                            .forEach(i -> analyseSlot(normalizer, slotLayout, i, changeGate, signatures, changed, features, frameScope)))
+                    .join();
+        }
+        FeatureQuantizer.quantize(features);
+
+        int changedCount = 0;
+        for (int i = 0; i < slotCount; i++) {
+            if (changed[i]) {
+                System.arraycopy(features, i * FeatureExtractor.FEATURE_COUNT, features, changedCount * FeatureExtractor.FEATURE_COUNT,
+                        FeatureExtractor.FEATURE_COUNT);
+                changedCount++;
+            }
+        }
+        long extracted = System.nanoTime();
+        FramePredictions predictions = svmModel.predict(features, changedCount);
+        meters.frameAnalysed(normalized - start, extracted - normalized, System.nanoTime() - extracted, slotCount, changedCount);
+        return changeGate.update(changed, signatures, predictions);
+    }
 
-        ParkingSlotDetail parkingSlotDetail = new ParkingSlotDetail();
-        parkingSlotDetail.setPoints(points);
-        return parkingSlotDetail;
+    private void analyseSlot(FrameNormalizer normalizer, SlotLayout slotLayout, int slot, SlotChangeGate changeGate,
+                             float[] signatures, boolean[] changed, double[] features, MatScope frameScope) {
+        PixelBuffer pixels = convertImageToMatrix(normalizer.slot(slotLayout, slot, frameScope));
+        SlotSignature.compute(pixels, signatures, slot * SlotSignature.SIZE);
+        if (changeGate.isChanged(slot, signatures)) {
+            changed[slot] = true;
+            featureExtractor.extract(pixels, features, slot * FeatureExtractor.FEATURE_COUNT);
+        }
     }
 
-    private PointInfo mapToPointInfo(CoordinatesInfo coordinatesInfo) {
-        return new PointInfo(
-                coordinatesInfo.getId().intValue(),
-                coordinatesInfo.getX(),
-                coordinatesInfo.getY(),
-                coordinatesInfo.getRealX(),
-                coordinatesInfo.getRealY()
-        );
+    /**
+     * Publishes an event for every slot whose state differs from the previous
+     * frame and returns whether there was any.
+     */
+    public boolean publishOccupancyChanges(SlotLayout slotLayout, FramePredictions previous, FramePredictions current,
+                                           Long layoutId, Long sourceId, long timestamp) {
+        boolean changed = false;
+        for (int i = 0; i < current.size(); i++) {
+            if (i >= previous.size() || previous.predictions()[i] != current.predictions()[i]) {
+                occupancyPublisher.onOccupancyChanged(new OccupancyEvent(layoutId, sourceId, slotLayout.slotIndex(i),
+                        current.isOccupied(i), current.confidences()[i], timestamp));
+                changed = true;
+            }
+        }
+        return changed;
     }
 }
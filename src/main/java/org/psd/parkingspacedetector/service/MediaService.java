@@ -9,6 +9,7 @@ import org.psd.parkingspacedetector.entity.Media;
 import org.psd.parkingspacedetector.entity.MediaType;
 import org.psd.parkingspacedetector.enums.EnumMediaType;
 import org.psd.parkingspacedetector.repository.MediaRepository;
+import org.psd.parkingspacedetector.service.svm.CompactSvmModel;
 
 import java.io.File;
 import java.io.IOException;
@@ -26,6 +27,7 @@ public class MediaService {
 
     private final MediaRepository mediaRepository;
     private final MediaConfig mediaConfig;
+    private final SvmModelCache svmModelCache;
 
     @Transactional(readOnly = true)
     public List<Media> getMedias() {
@@ -44,28 +46,27 @@ public class MediaService {
 
     @Transactional
     public Media save(File destinationFile) {
-        Media media = new Media();
-        media.setName(destinationFile.getName());
-        MediaType mediaType = new MediaType();
-        long mediaTypeId = EnumMediaType.VIDEO.getId();
-        String mediaTypeName = EnumMediaType.VIDEO.getName();
-        if (isImageFile(destinationFile)) {
-            mediaTypeId = EnumMediaType.IMAGE.getId();
-            mediaTypeName = EnumMediaType.IMAGE.getName();
-        }
-        mediaType.setId(mediaTypeId);
-        mediaType.setName(mediaTypeName);
-        media.setMediaType(mediaType);
-        String path = mediaConfig.getMediaUrl() + destinationFile.getName();
-        media.setPath(path);
-        media.setOriginalPath(destinationFile.getPath());
-        ZonedDateTime currentDateTime = ZonedDateTime.now();
-        media.setCreatedAt(currentDateTime);
-        return mediaRepository.save(media);
+        return mediaRepository.save(newMedia(destinationFile, detectMediaType(destinationFile), null));
     }
 
     @Transactional
     public Media saveByMediaTypeAndRefId(File destinationFile, EnumMediaType mediaTypeItem, Long refId) {
+        return mediaRepository.save(newMedia(destinationFile, mediaTypeItem, refId));
+    }
+
+    @Transactional
+    public Media saveUpload(File destinationFile, Long refId, String contentHash) {
+        Media media = newMedia(destinationFile, detectMediaType(destinationFile), refId);
+        media.setContentHash(contentHash);
+        return mediaRepository.save(media);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<Media> findUpload(String contentHash, Long refId) {
+        return mediaRepository.findFirstByContentHashAndRefIdAndDisabledFalse(contentHash, refId);
+    }
+
+    private Media newMedia(File destinationFile, EnumMediaType mediaTypeItem, Long refId) {
         Media media = new Media();
         media.setName(destinationFile.getName());
         media.setRefId(refId);
@@ -78,6 +79,25 @@ public class MediaService {
         media.setOriginalPath(destinationFile.getPath());
         ZonedDateTime currentDateTime = ZonedDateTime.now();
         media.setCreatedAt(currentDateTime);
+        return media;
+    }
+
+    private EnumMediaType detectMediaType(File file) {
+        return isImageFile(file) ? EnumMediaType.IMAGE : EnumMediaType.VIDEO;
+    }
+
+    @Transactional
+    public Media saveStream(String url, Long refId) {
+        Media media = new Media();
+        media.setName(url);
+        media.setRefId(refId);
+        MediaType mediaType = new MediaType();
+        mediaType.setId(EnumMediaType.STREAM.getId());
+        mediaType.setName(EnumMediaType.STREAM.getName());
+        media.setMediaType(mediaType);
+        media.setPath(url);
+        media.setOriginalPath(url);
+        media.setCreatedAt(ZonedDateTime.now());
         return mediaRepository.save(media);
     }
 
@@ -109,13 +129,27 @@ public class MediaService {
     }
 
     private boolean disableMediaItem(Media media) {
-        removeFileFromServer(media.getOriginalPath());
+        svmModelCache.invalidate(media.getId());
+        if (!isStream(media)) {
+            removeFileFromServer(media.getOriginalPath());
+        }
+        if (isModel(media)) {
+            removeFileFromServer(CompactSvmModel.pathFor(media.getOriginalPath()));
+        }
         media.setDisabled(true);
         media.setModifiedAt(ZonedDateTime.now());
         mediaRepository.save(media);
         return true;
     }
 
+    private boolean isModel(Media media) {
+        return media.getMediaType() != null && media.getMediaType().getId() == EnumMediaType.MODEL.getId();
+    }
+
+    private boolean isStream(Media media) {
+        return media.getMediaType() != null && media.getMediaType().getId() == EnumMediaType.STREAM.getId();
+    }
+
     private void removeFileFromServer(String filePath) {
         try {
             Path pathToFile = Paths.get(filePath);
@@ -4,6 +4,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.psd.parkingspacedetector.dto.request.ParkingBatchTrainingRequest;
 import org.psd.parkingspacedetector.dto.request.ParkingSlotDetail;
 import org.psd.parkingspacedetector.dto.request.ParkingTrainingRequest;
 import org.psd.parkingspacedetector.dto.request.PointInfo;
@@ -11,9 +12,14 @@ import org.psd.parkingspacedetector.entity.CoordinatesInfo;
 import org.psd.parkingspacedetector.entity.Media;
 import org.psd.parkingspacedetector.entity.ParkingSlotInfo;
 import org.psd.parkingspacedetector.repository.MediaRepository;
+import org.psd.parkingspacedetector.repository.ParkingSlotBatchRepository;
 import org.psd.parkingspacedetector.repository.ParkingSlotInfoRepository;
+import org.psd.parkingspacedetector.repository.SlotCoordinateRow;
+import org.psd.parkingspacedetector.service.layout.SlotLayoutCache;
 
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 @Slf4j
@@ -23,6 +29,8 @@ public class ParkingSlotService {
 
     private final MediaRepository mediaRepository;
     private final ParkingSlotInfoRepository parkingSlotInfoRepository;
+    private final ParkingSlotBatchRepository parkingSlotBatchRepository;
+    private final SlotLayoutCache slotLayoutCache;
 
     @Transactional
     public String saveParkingSlotInfos(ParkingTrainingRequest request) {
@@ -33,15 +41,73 @@ public class ParkingSlotService {
         return media.getOriginalPath();
     }
 
+    @Transactional
+    public List<TrainingImage> saveParkingSlotInfos(ParkingBatchTrainingRequest request) {
+        if (request.getLayoutId() == null) {
+            throw new RuntimeException("Layout id is required");
+        }
+        List<ParkingTrainingRequest> images = request.getImages() == null ? List.of() : request.getImages();
+        // the layout media defines the slots the model is used with, so it must be labelled itself
+        boolean layoutInBatch = images.stream().anyMatch(image -> request.getLayoutId().equals(image.getMediaId())
+                && image.getSlotDetails() != null && !image.getSlotDetails().isEmpty());
+        if (!layoutInBatch && !parkingSlotInfoRepository.existsByMedia_Id(request.getLayoutId())) {
+            throw new RuntimeException("Layout media " + request.getLayoutId() + " has no labelled slots");
+        }
+        return images.stream()
+                .map(image -> new TrainingImage(image.getMediaId(), saveParkingSlotInfos(image), image.getSlotDetails()))
+                .toList();
+    }
+
+    @Transactional(readOnly = true)
+    public List<SlotCoordinateRow> getLayoutRows(Long mediaId) {
+        return parkingSlotInfoRepository.findLayoutRowsByMediaId(mediaId);
+    }
+
+    /**
+     * Rebuilds training images from their stored labels, skipping media that
+     * were disabled or have no labelled slots.
+     */
+    @Transactional(readOnly = true)
+    public List<TrainingImage> getTrainingImages(Collection<Long> mediaIds) {
+        List<TrainingImage> images = new ArrayList<>();
+        for (Long mediaId : mediaIds) {
+            mediaRepository.findByIdAndDisabledFalse(mediaId).ifPresent(media -> {
+                List<ParkingSlotDetail> slotDetails = toSlotDetails(parkingSlotInfoRepository.findLayoutRowsByMediaId(mediaId));
+                if (!slotDetails.isEmpty()) {
+                    images.add(new TrainingImage(mediaId, media.getOriginalPath(), slotDetails));
+                }
+            });
+        }
+        return images;
+    }
+
+    private List<ParkingSlotDetail> toSlotDetails(List<SlotCoordinateRow> rows) {
+        List<ParkingSlotDetail> slotDetails = new ArrayList<>();
+        List<PointInfo> points = null;
+        Long previousSlotId = null;
+        for (SlotCoordinateRow row : rows) {
+            if (!row.slotId().equals(previousSlotId)) {
+                points = new ArrayList<>();
+                slotDetails.add(new ParkingSlotDetail(row.slotIndex(), row.isEmpty(), points));
+                previousSlotId = row.slotId();
+            }
+            if (row.pointOrder() != null) {
+                points.add(new PointInfo(row.pointOrder(), row.x(), row.y(), row.realX(), row.realY()));
+            }
+        }
+        return slotDetails;
+    }
+
     private void saveParkingSlotInfos(ParkingTrainingRequest request, Long mediaId, Media media) {
-        parkingSlotInfoRepository.deleteByMediaIdAndIsTrain(mediaId);
+        parkingSlotBatchRepository.deleteTrainSlots(mediaId);
         ZonedDateTime currentDatetime = ZonedDateTime.now();
 
         List<ParkingSlotInfo> parkingSlots = request.getSlotDetails().stream()
                 .map(slotDetail -> createParkingSlotInfo(slotDetail, media, currentDatetime))
                 .toList();
 
-        parkingSlotInfoRepository.saveAll(parkingSlots);
+        parkingSlotBatchRepository.insertTrainSlots(mediaId, parkingSlots);
+        slotLayoutCache.invalidate(mediaId);
     }
 
     private ParkingSlotInfo createParkingSlotInfo(ParkingSlotDetail slotDetail, Media media, ZonedDateTime createdAt) {
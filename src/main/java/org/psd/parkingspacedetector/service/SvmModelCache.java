@@ -0,0 +1,113 @@
+package org.psd.parkingspacedetector.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.psd.parkingspacedetector.configuration.DetectorConfig;
+import org.psd.parkingspacedetector.dto.response.ModelCacheStatsDTO;
+import org.psd.parkingspacedetector.entity.Media;
+import org.psd.parkingspacedetector.service.metrics.DetectorMetrics;
+import org.psd.parkingspacedetector.service.svm.CompactSvmModel;
+import org.psd.parkingspacedetector.service.svm.MappedSvmPredictor;
+import org.psd.parkingspacedetector.service.svm.SvmPredictor;
+import weka.classifiers.functions.SMO;
+import weka.core.SerializationHelper;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps loaded predictors by model id. One predictor is handed to every
+ * caller, so {@link SvmPredictor} implementations must be safe to share
+ * between threads.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SvmModelCache {
+
+    private record ModelKey(Long modelId, long lastModified) {
+    }
+
+    private final DetectorConfig detectorConfig;
+    private final DetectorMetrics detectorMetrics;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    // Bumped by every invalidation, so a load that overlaps one is not cached.
+    private long generation;
+    private final Map<ModelKey, SvmPredictor> models = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ModelKey, SvmPredictor> eldest) {
+            return size() > detectorConfig.getModelCacheSize();
+        }
+    };
+
+    public SvmPredictor get(Media model) {
+        String modelPath = model.getOriginalPath();
+        ModelKey key = new ModelKey(model.getId(), new File(modelPath).lastModified());
+
+        long loadGeneration;
+        synchronized (models) {
+            SvmPredictor cachedModel = models.get(key);
+            if (cachedModel != null) {
+                hits.incrementAndGet();
+                return cachedModel;
+            }
+            loadGeneration = generation;
+        }
+
+        misses.incrementAndGet();
+        SvmPredictor svmModel = loadPredictor(modelPath);
+        synchronized (models) {
+            if (generation == loadGeneration) {
+                models.keySet().removeIf(cachedKey -> cachedKey.modelId().equals(key.modelId()));
+                models.put(key, svmModel);
+            }
+        }
+        return svmModel;
+    }
+
+    public void invalidate(Long modelId) {
+        synchronized (models) {
+            generation++;
+            models.keySet().removeIf(key -> key.modelId().equals(modelId));
+        }
+    }
+
+    public ModelCacheStatsDTO getStats() {
+        synchronized (models) {
+            return new ModelCacheStatsDTO(hits.get(), misses.get(), models.size(), detectorConfig.getModelCacheSize());
+        }
+    }
+
+    private SvmPredictor loadPredictor(String modelPath) {
+        Path compactModelPath = Path.of(CompactSvmModel.pathFor(modelPath));
+        if (Files.exists(compactModelPath)) {
+            try {
+                long start = System.nanoTime();
+                SvmPredictor predictor = MappedSvmPredictor.open(compactModelPath);
+                detectorMetrics.modelLoaded("compact", System.nanoTime() - start);
+                return predictor;
+            } catch (RuntimeException e) {
+                log.warn("Ignoring compact model {}: {}", compactModelPath, e.getMessage());
+            }
+        }
+        long start = System.nanoTime();
+        SvmPredictor predictor = SvmPredictor.of(loadSvmModel(modelPath));
+        detectorMetrics.modelLoaded("weka", System.nanoTime() - start);
+        return predictor;
+    }
+
+    private SMO loadSvmModel(String modelPath) {
+        try {
+            return (SMO) SerializationHelper.read(modelPath);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to load model.", e);
+        }
+    }
+}
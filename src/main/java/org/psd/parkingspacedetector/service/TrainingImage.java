@@ -0,0 +1,8 @@
+package org.psd.parkingspacedetector.service;
+
+import org.psd.parkingspacedetector.dto.request.ParkingSlotDetail;
+
+import java.util.List;
+
+public record TrainingImage(Long mediaId, String originalPath, List<ParkingSlotDetail> slotDetails) {
+}
@@ -0,0 +1,25 @@
+package org.psd.parkingspacedetector.service;
+
+import org.psd.parkingspacedetector.enums.EnumTrainingStage;
+
+public interface TrainingProgressListener {
+
+    TrainingProgressListener NONE = new TrainingProgressListener() {
+    };
+
+    default void onStage(EnumTrainingStage stage) {
+    }
+
+    default void onSlotsScheduled(int slots) {
+    }
+
+    default void onSlotFeaturized() {
+    }
+
+    default void onKernelEvaluations(long evaluations) {
+    }
+
+    default boolean isCancelled() {
+        return false;
+    }
+}
@@ -0,0 +1,52 @@
+package org.psd.parkingspacedetector.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.psd.parkingspacedetector.entity.Media;
+import org.psd.parkingspacedetector.entity.TrainingSample;
+import org.psd.parkingspacedetector.repository.MediaRepository;
+import org.psd.parkingspacedetector.repository.TrainingSampleRepository;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TrainingSampleService {
+
+    private final TrainingSampleRepository trainingSampleRepository;
+    private final MediaRepository mediaRepository;
+
+    @Transactional
+    public void replaceSamples(Long layoutId, Map<Long, List<TrainingSample>> samplesByMediaId) {
+        if (samplesByMediaId.isEmpty()) {
+            return;
+        }
+        trainingSampleRepository.deleteByLayoutIdAndMediaIds(layoutId, samplesByMediaId.keySet());
+
+        ZonedDateTime createdAt = ZonedDateTime.now();
+        samplesByMediaId.forEach((mediaId, samples) -> {
+            Media media = mediaRepository.getReferenceById(mediaId);
+            samples.forEach(sample -> {
+                sample.setLayoutId(layoutId);
+                sample.setMedia(media);
+                sample.setCreatedAt(createdAt);
+            });
+            trainingSampleRepository.saveAll(samples);
+        });
+    }
+
+    @Transactional(readOnly = true)
+    public List<TrainingSample> getSamples(Long layoutId) {
+        return trainingSampleRepository.findAllByLayoutIdOrderByMedia_IdAscSlotIndexAsc(layoutId);
+    }
+
+    @Transactional(readOnly = true)
+    public List<Long> getStaleMediaIds(Long layoutId, String featureVersion) {
+        return trainingSampleRepository.findMediaIdsWithOtherFeatureVersion(layoutId, featureVersion);
+    }
+}
@@ -0,0 +1,28 @@
+package org.psd.parkingspacedetector.service.feature;
+
+/**
+ * Splits a slot crop into a 3x3 grid (NW, N, NE, W, C, E, SW, S, SE) and
+ * reduces every block to one feature value.
+ */
+public abstract class BlockFeatureExtractor implements FeatureExtractor {
+
+    private static final int GRID_SIZE = 3;
+
+    @Override
+    public void extract(PixelBuffer pixels, double[] features, int offset) {
+        int blockRows = pixels.getRows() / GRID_SIZE;
+        int blockCols = pixels.getCols() / GRID_SIZE;
+        if (blockRows == 0 || blockCols == 0) {
+            throw new RuntimeException("Slot crop is smaller than 3x3 pixels.");
+        }
+
+        int index = offset;
+        for (int gridRow = 0; gridRow < GRID_SIZE; gridRow++) {
+            for (int gridCol = 0; gridCol < GRID_SIZE; gridCol++) {
+                features[index++] = extractBlock(pixels, gridRow * blockRows, gridCol * blockCols, blockRows, blockCols);
+            }
+        }
+    }
+
+    protected abstract double extractBlock(PixelBuffer pixels, int top, int left, int rows, int cols);
+}
@@ -0,0 +1,18 @@
+package org.psd.parkingspacedetector.service.feature;
+
+public interface FeatureExtractor {
+
+    int FEATURE_COUNT = 9;
+
+    /**
+     * Identifies the features this extractor computes. Stored training rows
+     * with another version are re-extracted before they are trained on.
+     */
+    String getVersion();
+
+    void extract(PixelBuffer pixels, double[] features, int offset);
+
+    default void extract(PixelBuffer pixels, double[] features) {
+        extract(pixels, features, 0);
+    }
+}
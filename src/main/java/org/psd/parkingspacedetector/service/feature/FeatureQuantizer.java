@@ -0,0 +1,25 @@
+package org.psd.parkingspacedetector.service.feature;
+
+/**
+ * Rounds features to the 7 decimal places models have been trained on
+ * (formerly a {@code DecimalFormat("#.#######")} / {@code Double.parseDouble}
+ * round trip). {@code k / 1e7} is correctly rounded, so the result is the same
+ * double the string round trip produced, independent of the default locale.
+ */
+public final class FeatureQuantizer {
+
+    private static final double SCALE = 1e7;
+
+    private FeatureQuantizer() {
+    }
+
+    public static double quantize(double value) {
+        return Math.rint(value * SCALE) / SCALE;
+    }
+
+    public static void quantize(double[] features) {
+        for (int i = 0; i < features.length; i++) {
+            features[i] = quantize(features[i]);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package org.psd.parkingspacedetector.service.feature;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Binary form of one slot's feature vector as persisted with a training sample.
+ */
+public final class FeatureRows {
+
+    public static final int ROW_BYTES = FeatureExtractor.FEATURE_COUNT * Double.BYTES;
+
+    private FeatureRows() {
+    }
+
+    public static byte[] encode(double[] features, int offset) {
+        ByteBuffer buffer = ByteBuffer.allocate(ROW_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < FeatureExtractor.FEATURE_COUNT; i++) {
+            buffer.putDouble(features[offset + i]);
+        }
+        return buffer.array();
+    }
+
+    public static void decode(byte[] row, double[] features, int offset) {
+        if (row.length != ROW_BYTES) {
+            throw new RuntimeException("Invalid feature row length: " + row.length);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(row).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < FeatureExtractor.FEATURE_COUNT; i++) {
+            features[offset + i] = buffer.getDouble();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package org.psd.parkingspacedetector.service.feature;
+
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+import org.psd.parkingspacedetector.service.layout.SlotLayout;
+import org.psd.parkingspacedetector.service.mat.MatScope;
+
+/**
+ * Grayscale, blur, adaptive threshold and median filter of the part of a
+ * frame a slot layout covers. The region is the union of the slot rects
+ * grown by the combined radius of the filter kernels, so every slot pixel
+ * comes out exactly as it would from normalizing the whole frame.
+ * <p>
+ * The intermediate and output {@link Mat}s are allocated on the first frame
+ * and reused while the frame size stays the same; {@link #close()} frees
+ * them. One instance per video or stream, used from a single thread.
+ */
+public class FrameNormalizer implements AutoCloseable {
+
+    private static final int BLUR_KERNEL = 3;
+    private static final int THRESHOLD_BLOCK = 25;
+    private static final int MEDIAN_KERNEL = 5;
+
+    public static final int MARGIN = BLUR_KERNEL / 2 + THRESHOLD_BLOCK / 2 + MEDIAN_KERNEL / 2;
+
+    private final Rect slotBounds;
+    private final MatScope buffers = new MatScope();
+    private final Mat grayImage = buffers.newMat();
+    private final Mat blurredImage = buffers.newMat();
+    private final Mat thresholdImage = buffers.newMat();
+    private final Mat normalizedImage = buffers.newMat();
+    private Rect region = new Rect();
+
+    public FrameNormalizer(SlotLayout slotLayout) {
+        this.slotBounds = slotLayout.bounds();
+    }
+
+    /**
+     * Normalizes the layout region of {@code frame}. The result is owned by
+     * this normalizer and overwritten by the next call.
+     */
+    public Mat normalize(Mat frame) {
+        region = regionOf(frame);
+        try (MatScope scope = new MatScope()) {
+            Imgproc.cvtColor(scope.submat(frame, region), grayImage, Imgproc.COLOR_BGR2GRAY);
+        }
+        Imgproc.GaussianBlur(grayImage, blurredImage, new Size(BLUR_KERNEL, BLUR_KERNEL), 1);
+        Imgproc.adaptiveThreshold(
+                blurredImage,
+                thresholdImage,
+                255,
+                Imgproc.ADAPTIVE_THRESH_GAUSSIAN_C,
+                Imgproc.THRESH_BINARY_INV,
+                THRESHOLD_BLOCK,
+                16
+        );
+        Imgproc.medianBlur(thresholdImage, normalizedImage, MEDIAN_KERNEL);
+        return normalizedImage;
+    }
+
+    /**
+     * View of one slot of the last normalized frame, released with {@code scope}.
+     */
+    public Mat slot(SlotLayout slotLayout, int slot, MatScope scope) {
+        int x = slotLayout.x(slot) - region.x;
+        int y = slotLayout.y(slot) - region.y;
+        return scope.submat(normalizedImage, new Rect(x, y, slotLayout.width(slot), slotLayout.height(slot)));
+    }
+
+    public Rect getRegion() {
+        return region.clone();
+    }
+
+    @Override
+    public void close() {
+        buffers.close();
+    }
+
+    private Rect regionOf(Mat frame) {
+        if (slotBounds.empty()) {
+            return new Rect(0, 0, frame.cols(), frame.rows());
+        }
+        int startX = Math.max(0, slotBounds.x - MARGIN);
+        int startY = Math.max(0, slotBounds.y - MARGIN);
+        int endX = Math.min(frame.cols(), slotBounds.x + slotBounds.width + MARGIN);
+        int endY = Math.min(frame.rows(), slotBounds.y + slotBounds.height + MARGIN);
+        if (endX <= startX || endY <= startY) {
+            throw new RuntimeException("Parking slots lie outside the frame.");
+        }
+        return new Rect(startX, startY, endX - startX, endY - startY);
+    }
+}
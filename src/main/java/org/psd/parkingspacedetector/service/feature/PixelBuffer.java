@@ -0,0 +1,55 @@
+package org.psd.parkingspacedetector.service.feature;
+
+import lombok.Getter;
+import org.opencv.core.Mat;
+
+import static org.psd.parkingspacedetector.service.ImageProcessingService.roundToNearestMultipleOfThree;
+
+/**
+ * Reusable primitive copy of a slot crop. A crop is copied with a single
+ * {@link Mat#get(int, int, byte[])} call and the backing array only grows,
+ * so one buffer per worker is enough for every slot of every frame.
+ */
+@Getter
+public class PixelBuffer {
+
+    private byte[] data = new byte[0];
+    private int rows;
+    private int cols;
+    private int stride;
+    private int channels;
+
+    public PixelBuffer load(Mat image) {
+        int usableRows = roundToNearestMultipleOfThree(image.rows());
+        int rowStride = image.cols() * image.channels();
+        ensureCapacity(usableRows * rowStride);
+        if (usableRows > 0) {
+            image.get(0, 0, data);
+        }
+        return update(usableRows, roundToNearestMultipleOfThree(image.cols()), rowStride, image.channels());
+    }
+
+    public PixelBuffer load(byte[] pixels, int imageRows, int imageCols) {
+        ensureCapacity(pixels.length);
+        System.arraycopy(pixels, 0, data, 0, pixels.length);
+        return update(roundToNearestMultipleOfThree(imageRows), roundToNearestMultipleOfThree(imageCols), imageCols, 1);
+    }
+
+    public int get(int row, int col) {
+        return data[row * stride + col * channels] & 0xFF;
+    }
+
+    private void ensureCapacity(int size) {
+        if (data.length < size) {
+            data = new byte[size];
+        }
+    }
+
+    private PixelBuffer update(int rows, int cols, int stride, int channels) {
+        this.rows = rows;
+        this.cols = cols;
+        this.stride = stride;
+        this.channels = channels;
+        return this;
+    }
+}
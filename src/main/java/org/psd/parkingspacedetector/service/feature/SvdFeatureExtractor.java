@@ -0,0 +1,65 @@
+package org.psd.parkingspacedetector.service.feature;
+
+import org.apache.commons.math3.linear.MatrixUtils;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.linear.SingularValueDecomposition;
+
+/**
+ * Reference implementation: mean of the U matrix of a full SVD of the
+ * column-centred block.
+ */
+public class SvdFeatureExtractor extends BlockFeatureExtractor {
+
+    public static final String VERSION = "svd-u-mean/1";
+
+    @Override
+    public String getVersion() {
+        return VERSION;
+    }
+
+    @Override
+    protected double extractBlock(PixelBuffer pixels, int top, int left, int rows, int cols) {
+        double[][] data = new double[rows][cols];
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                data[r][c] = pixels.get(top + r, left + c);
+            }
+        }
+
+        RealMatrix matrix = MatrixUtils.createRealMatrix(data);
+        centralizeMatrix(matrix);
+
+        SingularValueDecomposition svd = new SingularValueDecomposition(matrix);
+        return calculateMean(svd.getU());
+    }
+
+    private void centralizeMatrix(RealMatrix matrix) {
+        int columnDimension = matrix.getColumnDimension();
+        int rowDimension = matrix.getRowDimension();
+
+        double[] columnMeans = new double[columnDimension];
+        for (int i = 0; i < columnDimension; i++) {
+            columnMeans[i] = matrix.getColumnVector(i).getL1Norm() / rowDimension;
+        }
+
+        for (int i = 0; i < rowDimension; i++) {
+            for (int j = 0; j < columnDimension; j++) {
+                matrix.setEntry(i, j, matrix.getEntry(i, j) - columnMeans[j]);
+            }
+        }
+    }
+
+    private double calculateMean(RealMatrix uMatrix) {
+        double sum = 0.0;
+        int uRows = uMatrix.getRowDimension();
+        int uCols = uMatrix.getColumnDimension();
+
+        for (int i = 0; i < uRows; i++) {
+            for (int j = 0; j < uCols; j++) {
+                sum += uMatrix.getEntry(i, j);
+            }
+        }
+
+        return sum / (uRows * uCols);
+    }
+}
@@ -0,0 +1,80 @@
+package org.psd.parkingspacedetector.service.gate;
+
+import lombok.Getter;
+import org.psd.parkingspacedetector.service.FramePredictions;
+
+/**
+ * Per-run memory of what every slot looked like when it was last classified.
+ * A slot only goes back through feature extraction and the SVM once its
+ * {@link SlotSignature} has drifted more than {@code threshold} from that
+ * reference; otherwise its previous prediction is reused. Every
+ * {@code refreshInterval} samples all slots are classified again, so a
+ * refresh interval of 1 disables the gate.
+ * <p>
+ * {@link #isChanged} may be called concurrently while a frame is analysed;
+ * {@link #beginFrame} and {@link #update} must come from a single thread.
+ */
+public class SlotChangeGate {
+
+    private final int slotCount;
+    private final float threshold;
+    private final int refreshInterval;
+
+    private final float[] references;
+    private final double[] predictions;
+    private final double[] confidences;
+    private int samplesSinceRefresh;
+    private boolean refreshAll;
+
+    @Getter
+    private long slotsEvaluated;
+    @Getter
+    private long slotsClassified;
+
+    public SlotChangeGate(int slotCount, double threshold, int refreshInterval) {
+        this.slotCount = slotCount;
+        this.threshold = (float) threshold;
+        this.refreshInterval = Math.max(1, refreshInterval);
+        this.references = new float[slotCount * SlotSignature.SIZE];
+        this.predictions = new double[slotCount];
+        this.confidences = new double[slotCount];
+        this.samplesSinceRefresh = this.refreshInterval;
+    }
+
+    public static SlotChangeGate disabled(int slotCount) {
+        return new SlotChangeGate(slotCount, 0, 1);
+    }
+
+    public void beginFrame() {
+        refreshAll = samplesSinceRefresh >= refreshInterval;
+        samplesSinceRefresh = refreshAll ? 1 : samplesSinceRefresh + 1;
+    }
+
+    public boolean isChanged(int slot, float[] signatures) {
+        int offset = slot * SlotSignature.SIZE;
+        return refreshAll || SlotSignature.distance(signatures, offset, references, offset) > threshold;
+    }
+
+    /**
+     * Stores the fresh results of the slots flagged in {@code changed}, in
+     * slot order, and returns the predictions of the whole layout.
+     */
+    public FramePredictions update(boolean[] changed, float[] signatures, FramePredictions classified) {
+        int next = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (changed[slot]) {
+                predictions[slot] = classified.predictions()[next];
+                confidences[slot] = classified.confidences()[next];
+                System.arraycopy(signatures, slot * SlotSignature.SIZE, references, slot * SlotSignature.SIZE, SlotSignature.SIZE);
+                next++;
+            }
+        }
+        slotsEvaluated += slotCount;
+        slotsClassified += next;
+        return new FramePredictions(predictions.clone(), confidences.clone());
+    }
+
+    public double getAvoidedFraction() {
+        return slotsEvaluated == 0 ? 0.0 : 1.0 - (double) slotsClassified / slotsEvaluated;
+    }
+}
@@ -0,0 +1,52 @@
+package org.psd.parkingspacedetector.service.gate;
+
+import org.psd.parkingspacedetector.service.feature.PixelBuffer;
+
+/**
+ * Cheap fingerprint of a normalized slot crop: its overall mean followed by
+ * the means of a {@value #GRID}x{@value #GRID} downsampled thumbnail, all
+ * scaled to {@code [0, 1]}. On the thresholded edge map this is the share of
+ * edge pixels per cell, so the distance between two signatures is the largest
+ * fraction of any cell that changed.
+ */
+public final class SlotSignature {
+
+    public static final int GRID = 4;
+    public static final int SIZE = GRID * GRID + 1;
+
+    private SlotSignature() {
+    }
+
+    public static void compute(PixelBuffer pixels, float[] signature, int offset) {
+        int rows = pixels.getRows();
+        int cols = pixels.getCols();
+        long total = 0;
+        for (int gr = 0; gr < GRID; gr++) {
+            int top = gr * rows / GRID;
+            int bottom = (gr + 1) * rows / GRID;
+            for (int gc = 0; gc < GRID; gc++) {
+                int left = gc * cols / GRID;
+                int right = (gc + 1) * cols / GRID;
+                long sum = 0;
+                for (int r = top; r < bottom; r++) {
+                    for (int c = left; c < right; c++) {
+                        sum += pixels.get(r, c);
+                    }
+                }
+                int area = (bottom - top) * (right - left);
+                signature[offset + 1 + gr * GRID + gc] = area == 0 ? 0f : (float) sum / (area * 255f);
+                total += sum;
+            }
+        }
+        int area = rows * cols;
+        signature[offset] = area == 0 ? 0f : (float) total / (area * 255f);
+    }
+
+    public static float distance(float[] a, int aOffset, float[] b, int bOffset) {
+        float max = 0f;
+        for (int i = 0; i < SIZE; i++) {
+            max = Math.max(max, Math.abs(a[aOffset + i] - b[bOffset + i]));
+        }
+        return max;
+    }
+}
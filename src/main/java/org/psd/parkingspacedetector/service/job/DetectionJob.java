@@ -0,0 +1,81 @@
+package org.psd.parkingspacedetector.service.job;
+
+import lombok.Getter;
+import org.psd.parkingspacedetector.dto.response.DetectionJobDTO;
+import org.psd.parkingspacedetector.enums.EnumDetectionOutput;
+import org.psd.parkingspacedetector.enums.EnumJobStatus;
+import org.psd.parkingspacedetector.service.DetectionProgressListener;
+
+@Getter
+public class DetectionJob implements DetectionProgressListener {
+
+    private final Long id;
+    private final Long mediaId;
+    private final Long modelId;
+    private final EnumDetectionOutput output;
+    private volatile EnumJobStatus status = EnumJobStatus.QUEUED;
+    private volatile long framesDone;
+    private volatile long totalFrames;
+    private volatile long startedAtNanos;
+    private volatile long finishedAtNanos;
+    private volatile Long resultMediaId;
+    private volatile String resultPath;
+    private volatile String message;
+
+    public DetectionJob(Long id, Long mediaId, Long modelId, EnumDetectionOutput output) {
+        this.id = id;
+        this.mediaId = mediaId;
+        this.modelId = modelId;
+        this.output = output;
+    }
+
+    @Override
+    public void onProgress(long framesDone, long totalFrames) {
+        this.framesDone = framesDone;
+        this.totalFrames = totalFrames;
+    }
+
+    void markRunning() {
+        startedAtNanos = System.nanoTime();
+        status = EnumJobStatus.RUNNING;
+    }
+
+    void markCompleted(Long resultMediaId, String resultPath) {
+        this.resultMediaId = resultMediaId;
+        this.resultPath = resultPath;
+        finish(EnumJobStatus.COMPLETED, "Result file generated successfully.");
+    }
+
+    void markFailed(String message) {
+        finish(EnumJobStatus.FAILED, message);
+    }
+
+    public boolean isFinished() {
+        return status == EnumJobStatus.COMPLETED || status == EnumJobStatus.FAILED;
+    }
+
+    public DetectionJobDTO toDto() {
+        double fps = calculateFps();
+        Long etaSeconds = null;
+        if (status == EnumJobStatus.RUNNING && fps > 0 && totalFrames > 0) {
+            etaSeconds = (long) Math.ceil(Math.max(0, totalFrames - framesDone) / fps);
+        }
+        return new DetectionJobDTO(id, mediaId, modelId, output, status, framesDone, totalFrames, fps, etaSeconds,
+                resultMediaId, resultPath, message);
+    }
+
+    private double calculateFps() {
+        if (startedAtNanos == 0) {
+            return 0;
+        }
+        long endNanos = isFinished() ? finishedAtNanos : System.nanoTime();
+        double elapsedSeconds = (endNanos - startedAtNanos) / 1e9;
+        return elapsedSeconds > 0 ? framesDone / elapsedSeconds : 0;
+    }
+
+    private void finish(EnumJobStatus finalStatus, String message) {
+        this.message = message;
+        finishedAtNanos = System.nanoTime();
+        status = finalStatus;
+    }
+}
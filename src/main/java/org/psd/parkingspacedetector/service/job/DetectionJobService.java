@@ -0,0 +1,77 @@
+package org.psd.parkingspacedetector.service.job;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.psd.parkingspacedetector.configuration.DetectorConfig;
+import org.psd.parkingspacedetector.entity.Media;
+import org.psd.parkingspacedetector.enums.EnumDetectionOutput;
+import org.psd.parkingspacedetector.service.ImageProcessingService;
+import org.psd.parkingspacedetector.service.MediaService;
+
+import java.io.File;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DetectionJobService {
+
+    private final ImageProcessingService imageProcessingService;
+    private final MediaService mediaService;
+    private final ThreadPoolExecutor detectionJobExecutor;
+    private final DetectorConfig detectorConfig;
+
+    private final AtomicLong jobIdSequence = new AtomicLong();
+    private final Map<Long, DetectionJob> jobs = new ConcurrentHashMap<>();
+    private final Queue<Long> finishedJobIds = new ConcurrentLinkedQueue<>();
+
+    public DetectionJob submit(Long mediaId, Long modelId, EnumDetectionOutput output) {
+        DetectionJob job = new DetectionJob(jobIdSequence.incrementAndGet(), mediaId, modelId, output);
+        jobs.put(job.getId(), job);
+        try {
+            detectionJobExecutor.execute(() -> run(job));
+        } catch (RuntimeException e) {
+            jobs.remove(job.getId());
+            throw e;
+        }
+        return job;
+    }
+
+    public Optional<DetectionJob> getJob(Long jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    private void run(DetectionJob job) {
+        job.markRunning();
+        try {
+            File resultFile = imageProcessingService.getParkingSlotDetectorResult(job.getMediaId(), job.getModelId(), job.getOutput(), job);
+            if (resultFile == null || !resultFile.exists()) {
+                throw new RuntimeException("Result file generation failed.");
+            }
+            Media resultMedia = mediaService.save(resultFile);
+            job.markCompleted(resultMedia.getId(), resultMedia.getPath());
+        } catch (Exception e) {
+            log.error("Detection job " + job.getId() + " failed", e);
+            job.markFailed("Failed to generate result file: " + e.getMessage());
+        } finally {
+            retire(job);
+        }
+    }
+
+    private void retire(DetectionJob job) {
+        finishedJobIds.add(job.getId());
+        while (finishedJobIds.size() > detectorConfig.getJobHistorySize()) {
+            Long oldestJobId = finishedJobIds.poll();
+            if (oldestJobId != null) {
+                jobs.remove(oldestJobId);
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package org.psd.parkingspacedetector.service.job;
+
+import lombok.Getter;
+import org.psd.parkingspacedetector.dto.request.ParkingBatchTrainingRequest;
+import org.psd.parkingspacedetector.dto.response.TrainingJobDTO;
+import org.psd.parkingspacedetector.enums.EnumJobStatus;
+import org.psd.parkingspacedetector.enums.EnumTrainingStage;
+import org.psd.parkingspacedetector.service.TrainingProgressListener;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Getter
+public class TrainingJob implements TrainingProgressListener {
+
+    private final Long id;
+    private final Long layoutId;
+    private final ParkingBatchTrainingRequest request;
+    private final AtomicLong slotsFeaturized = new AtomicLong();
+    private final CountDownLatch finished = new CountDownLatch(1);
+    private volatile EnumJobStatus status = EnumJobStatus.QUEUED;
+    private volatile EnumTrainingStage stage = EnumTrainingStage.QUEUED;
+    private volatile long totalSlots;
+    private volatile long kernelEvaluations;
+    private volatile boolean cancelRequested;
+    private volatile Long resultMediaId;
+    private volatile String resultPath;
+    private volatile String message;
+
+    public TrainingJob(Long id, ParkingBatchTrainingRequest request) {
+        this.id = id;
+        this.layoutId = request.getLayoutId();
+        this.request = request;
+    }
+
+    @Override
+    public void onStage(EnumTrainingStage stage) {
+        this.stage = stage;
+    }
+
+    @Override
+    public void onSlotsScheduled(int slots) {
+        totalSlots = slots;
+    }
+
+    @Override
+    public void onSlotFeaturized() {
+        slotsFeaturized.incrementAndGet();
+    }
+
+    @Override
+    public void onKernelEvaluations(long evaluations) {
+        kernelEvaluations = evaluations;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelRequested;
+    }
+
+    void requestCancel() {
+        cancelRequested = true;
+    }
+
+    void markRunning() {
+        status = EnumJobStatus.RUNNING;
+    }
+
+    void markCompleted(Long resultMediaId, String resultPath) {
+        this.resultMediaId = resultMediaId;
+        this.resultPath = resultPath;
+        finish(EnumJobStatus.COMPLETED, "Parking model trained successfully.");
+    }
+
+    void markCancelled() {
+        finish(EnumJobStatus.CANCELLED, "Training cancelled.");
+    }
+
+    void markFailed(String message) {
+        finish(EnumJobStatus.FAILED, message);
+    }
+
+    public boolean isFinished() {
+        return finished.getCount() == 0;
+    }
+
+    public void awaitFinished() throws InterruptedException {
+        finished.await();
+    }
+
+    public TrainingJobDTO toDto() {
+        int newImages = request.getImages() == null ? 0 : request.getImages().size();
+        return new TrainingJobDTO(id, layoutId, status, stage, newImages, slotsFeaturized.get(), totalSlots, kernelEvaluations,
+                cancelRequested, resultMediaId, resultPath, message);
+    }
+
+    private void finish(EnumJobStatus finalStatus, String message) {
+        this.message = message;
+        stage = EnumTrainingStage.DONE;
+        status = finalStatus;
+        finished.countDown();
+    }
+}
@@ -0,0 +1,180 @@
+package org.psd.parkingspacedetector.service.job;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.psd.parkingspacedetector.configuration.DetectorConfig;
+import org.psd.parkingspacedetector.dto.request.ParkingBatchTrainingRequest;
+import org.psd.parkingspacedetector.entity.Media;
+import org.psd.parkingspacedetector.enums.EnumMediaType;
+import org.psd.parkingspacedetector.enums.EnumTrainingStage;
+import org.psd.parkingspacedetector.service.ImageProcessingService;
+import org.psd.parkingspacedetector.service.MediaService;
+import org.psd.parkingspacedetector.service.ParkingSlotService;
+import org.psd.parkingspacedetector.service.TrainingImage;
+import org.psd.parkingspacedetector.service.TrainingSampleService;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs training jobs on the training executor. Jobs of the same layout run one
+ * after another on the worker that picked up the first of them, so they never
+ * race on replacing the layout's samples and model, while other layouts train
+ * on the remaining workers.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TrainingJobService {
+
+    private final ParkingSlotService parkingSlotService;
+    private final ImageProcessingService imageProcessingService;
+    private final MediaService mediaService;
+    private final TrainingSampleService trainingSampleService;
+    private final ThreadPoolExecutor trainingJobExecutor;
+    private final DetectorConfig detectorConfig;
+
+    private final AtomicLong jobIdSequence = new AtomicLong();
+    private final Map<Long, TrainingJob> jobs = new ConcurrentHashMap<>();
+    private final Queue<Long> finishedJobIds = new ConcurrentLinkedQueue<>();
+    // layouts with a job running, each with the jobs waiting behind it
+    private final Map<Long, Deque<TrainingJob>> waitingByLayout = new HashMap<>();
+    private int waitingCount;
+
+    public TrainingJob submit(ParkingBatchTrainingRequest request) {
+        if (request.getLayoutId() == null) {
+            throw new RuntimeException("Layout id is required");
+        }
+        TrainingJob job = new TrainingJob(jobIdSequence.incrementAndGet(), request);
+        synchronized (waitingByLayout) {
+            Deque<TrainingJob> waiting = waitingByLayout.get(job.getLayoutId());
+            if (waiting != null) {
+                if (waitingCount >= detectorConfig.getTrainingQueueSize()) {
+                    throw new RejectedExecutionException("Training queue is full");
+                }
+                waiting.add(job);
+                waitingCount++;
+            } else {
+                waitingByLayout.put(job.getLayoutId(), new ArrayDeque<>());
+                try {
+                    trainingJobExecutor.execute(() -> runLayout(job));
+                } catch (RuntimeException e) {
+                    waitingByLayout.remove(job.getLayoutId());
+                    throw e;
+                }
+            }
+            jobs.put(job.getId(), job);
+        }
+        return job;
+    }
+
+    public Optional<TrainingJob> getJob(Long jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    public Optional<TrainingJob> cancel(Long jobId) {
+        TrainingJob job = jobs.get(jobId);
+        if (job == null) {
+            return Optional.empty();
+        }
+        job.requestCancel();
+        synchronized (waitingByLayout) {
+            Deque<TrainingJob> waiting = waitingByLayout.get(job.getLayoutId());
+            if (waiting != null && waiting.remove(job)) {
+                waitingCount--;
+                job.markCancelled();
+                retire(job);
+            }
+        }
+        return Optional.of(job);
+    }
+
+    private void runLayout(TrainingJob firstJob) {
+        TrainingJob job = firstJob;
+        while (job != null) {
+            run(job);
+            synchronized (waitingByLayout) {
+                Deque<TrainingJob> waiting = waitingByLayout.get(job.getLayoutId());
+                job = waiting.poll();
+                if (job == null) {
+                    waitingByLayout.remove(firstJob.getLayoutId());
+                } else {
+                    waitingCount--;
+                }
+            }
+        }
+    }
+
+    private void run(TrainingJob job) {
+        job.markRunning();
+        try {
+            if (job.isCancelled()) {
+                throw new CancellationException();
+            }
+            job.onStage(EnumTrainingStage.SAVING_LABELS);
+            List<TrainingImage> newImages = parkingSlotService.saveParkingSlotInfos(job.getRequest());
+            File modelFile = imageProcessingService.generateModelFile(job.getLayoutId(), withStaleImages(job.getLayoutId(), newImages), job);
+            if (modelFile == null || !modelFile.exists()) {
+                throw new RuntimeException("Model file generation failed.");
+            }
+            Media modelMedia;
+            try {
+                modelMedia = mediaService.saveByMediaTypeAndRefId(modelFile, EnumMediaType.MODEL, job.getLayoutId());
+            } catch (RuntimeException e) {
+                imageProcessingService.discardModelFile(modelFile);
+                throw e;
+            }
+            imageProcessingService.disablePrevTrainModelIfExists(job.getLayoutId(), modelMedia.getId());
+            job.markCompleted(modelMedia.getId(), modelMedia.getPath());
+        } catch (CancellationException e) {
+            log.info("Training job {} of layout {} cancelled", job.getId(), job.getLayoutId());
+            job.markCancelled();
+        } catch (Exception e) {
+            log.error("Training job " + job.getId() + " failed", e);
+            job.markFailed("Error generating model file: " + e.getMessage());
+        } finally {
+            retire(job);
+        }
+    }
+
+    /**
+     * Adds the images whose stored samples came from another feature version,
+     * so they are extracted again along with the new ones.
+     */
+    private List<TrainingImage> withStaleImages(Long layoutId, List<TrainingImage> newImages) {
+        List<Long> staleMediaIds = new ArrayList<>(trainingSampleService.getStaleMediaIds(layoutId, imageProcessingService.getFeatureVersion()));
+        newImages.forEach(image -> staleMediaIds.remove(image.mediaId()));
+        if (staleMediaIds.isEmpty()) {
+            return newImages;
+        }
+        List<TrainingImage> images = new ArrayList<>(newImages);
+        images.addAll(parkingSlotService.getTrainingImages(staleMediaIds));
+        log.info("Re-extracting features of {} images of layout {} stored with another feature version", images.size() - newImages.size(),
+                layoutId);
+        return images;
+    }
+
+    private void retire(TrainingJob job) {
+        finishedJobIds.add(job.getId());
+        while (finishedJobIds.size() > detectorConfig.getJobHistorySize()) {
+            Long oldestJobId = finishedJobIds.poll();
+            if (oldestJobId != null) {
+                jobs.remove(oldestJobId);
+            }
+        }
+    }
+}
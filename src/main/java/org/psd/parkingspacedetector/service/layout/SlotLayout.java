@@ -0,0 +1,202 @@
+package org.psd.parkingspacedetector.service.layout;
+
+import org.opencv.core.Rect;
+import org.psd.parkingspacedetector.dto.request.ParkingSlotDetail;
+import org.psd.parkingspacedetector.dto.request.PointInfo;
+import org.psd.parkingspacedetector.repository.SlotCoordinateRow;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Immutable, pre-computed geometry of a parking layout: per slot its index,
+ * bounding rect and polygon, stored in flat int arrays.
+ */
+public final class SlotLayout {
+
+    private final int[] slotIndexes;
+    private final int[] rects;
+    private final int[] pointOffsets;
+    private final int[] points;
+    private final Rect bounds;
+
+    private SlotLayout(int[] slotIndexes, int[] rects, int[] pointOffsets, int[] points) {
+        this.slotIndexes = slotIndexes;
+        this.rects = rects;
+        this.pointOffsets = pointOffsets;
+        this.points = points;
+        this.bounds = unionOf(rects);
+    }
+
+    public static SlotLayout fromSlotDetails(List<ParkingSlotDetail> slotDetails) {
+        Builder builder = new Builder(slotDetails.size(), countPoints(slotDetails.stream().map(ParkingSlotDetail::getPoints).toList()));
+        for (int i = 0; i < slotDetails.size(); i++) {
+            ParkingSlotDetail slotDetail = slotDetails.get(i);
+            List<PointInfo> slotPoints = slotDetail.getPoints().stream()
+                    .sorted(Comparator.comparing(PointInfo::getId, Comparator.nullsLast(Comparator.naturalOrder())))
+                    .toList();
+            int slotIndex = slotDetail.getIndex() != null ? slotDetail.getIndex() : i;
+            builder.startSlot(slotIndex);
+            slotPoints.forEach(point -> builder.addPoint(point.getRealX().intValue(), point.getRealY().intValue()));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Builds the layout from rows ordered by slot id then point order, as
+     * returned by {@code ParkingSlotInfoRepository.findLayoutRowsByMediaId}.
+     */
+    public static SlotLayout fromCoordinateRows(List<SlotCoordinateRow> rows) {
+        int slotCount = 0;
+        int pointCount = 0;
+        Long previousSlotId = null;
+        for (SlotCoordinateRow row : rows) {
+            if (!row.slotId().equals(previousSlotId)) {
+                slotCount++;
+                previousSlotId = row.slotId();
+            }
+            if (row.pointOrder() != null) {
+                pointCount++;
+            }
+        }
+
+        Builder builder = new Builder(slotCount, pointCount);
+        previousSlotId = null;
+        for (SlotCoordinateRow row : rows) {
+            if (!row.slotId().equals(previousSlotId)) {
+                builder.startSlot(row.slotIndex());
+                previousSlotId = row.slotId();
+            }
+            if (row.pointOrder() != null) {
+                builder.addPoint(row.realX().intValue(), row.realY().intValue());
+            }
+        }
+        return builder.build();
+    }
+
+    public int size() {
+        return slotIndexes.length;
+    }
+
+    public int slotIndex(int slot) {
+        return slotIndexes[slot];
+    }
+
+    public int x(int slot) {
+        return rects[slot * 4];
+    }
+
+    public int y(int slot) {
+        return rects[slot * 4 + 1];
+    }
+
+    public int width(int slot) {
+        return rects[slot * 4 + 2];
+    }
+
+    public int height(int slot) {
+        return rects[slot * 4 + 3];
+    }
+
+    public Rect rect(int slot) {
+        return new Rect(x(slot), y(slot), width(slot), height(slot));
+    }
+
+    /**
+     * Smallest rect covering every slot, empty for a layout without slots.
+     */
+    public Rect bounds() {
+        return bounds.clone();
+    }
+
+    public int pointCount(int slot) {
+        return (pointOffsets[slot + 1] - pointOffsets[slot]) / 2;
+    }
+
+    public int pointX(int slot, int point) {
+        return points[pointOffsets[slot] + point * 2];
+    }
+
+    public int pointY(int slot, int point) {
+        return points[pointOffsets[slot] + point * 2 + 1];
+    }
+
+    private static Rect unionOf(int[] rects) {
+        if (rects.length == 0) {
+            return new Rect();
+        }
+        int startX = Integer.MAX_VALUE;
+        int startY = Integer.MAX_VALUE;
+        int endX = Integer.MIN_VALUE;
+        int endY = Integer.MIN_VALUE;
+        for (int i = 0; i < rects.length; i += 4) {
+            startX = Math.min(startX, rects[i]);
+            startY = Math.min(startY, rects[i + 1]);
+            endX = Math.max(endX, rects[i] + rects[i + 2]);
+            endY = Math.max(endY, rects[i + 1] + rects[i + 3]);
+        }
+        return new Rect(startX, startY, endX - startX, endY - startY);
+    }
+
+    private static int countPoints(List<? extends List<?>> slotPoints) {
+        return slotPoints.stream().mapToInt(List::size).sum();
+    }
+
+    private static final class Builder {
+        private final int[] slotIndexes;
+        private final int[] rects;
+        private final int[] pointOffsets;
+        private final int[] points;
+        private int slot = -1;
+        private int pointPosition;
+
+        private Builder(int slotCount, int pointCount) {
+            slotIndexes = new int[slotCount];
+            rects = new int[slotCount * 4];
+            pointOffsets = new int[slotCount + 1];
+            points = new int[pointCount * 2];
+        }
+
+        private void startSlot(int slotIndex) {
+            finishSlot();
+            slot++;
+            slotIndexes[slot] = slotIndex;
+            pointOffsets[slot] = pointPosition;
+        }
+
+        private void addPoint(int x, int y) {
+            points[pointPosition++] = x;
+            points[pointPosition++] = y;
+        }
+
+        private void finishSlot() {
+            if (slot < 0) {
+                return;
+            }
+            int start = pointOffsets[slot];
+            if (pointPosition == start) {
+                throw new RuntimeException("Parking slot " + slotIndexes[slot] + " has no points.");
+            }
+            int startX = Integer.MAX_VALUE;
+            int startY = Integer.MAX_VALUE;
+            int endX = Integer.MIN_VALUE;
+            int endY = Integer.MIN_VALUE;
+            for (int i = start; i < pointPosition; i += 2) {
+                startX = Math.min(startX, points[i]);
+                startY = Math.min(startY, points[i + 1]);
+                endX = Math.max(endX, points[i]);
+                endY = Math.max(endY, points[i + 1]);
+            }
+            rects[slot * 4] = startX;
+            rects[slot * 4 + 1] = startY;
+            rects[slot * 4 + 2] = endX - startX;
+            rects[slot * 4 + 3] = endY - startY;
+        }
+
+        private SlotLayout build() {
+            finishSlot();
+            pointOffsets[slotIndexes.length] = pointPosition;
+            return new SlotLayout(slotIndexes, rects, pointOffsets, points);
+        }
+    }
+}
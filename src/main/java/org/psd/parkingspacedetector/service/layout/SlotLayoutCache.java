@@ -0,0 +1,78 @@
+package org.psd.parkingspacedetector.service.layout;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.psd.parkingspacedetector.configuration.DetectorConfig;
+import org.psd.parkingspacedetector.repository.ParkingSlotInfoRepository;
+import org.psd.parkingspacedetector.repository.SlotCoordinateRow;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps slot layouts by layout media id, evicting the least recently used
+ * beyond {@code detector.layout-cache-size}.
+ */
+@Component
+@RequiredArgsConstructor
+public class SlotLayoutCache {
+
+    private final ParkingSlotInfoRepository parkingSlotInfoRepository;
+    private final DetectorConfig detectorConfig;
+
+    // Bumped by every invalidation, so a load that overlaps one is not cached.
+    private long generation;
+    private final Map<Long, SlotLayout> layouts = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, SlotLayout> eldest) {
+            return size() > detectorConfig.getLayoutCacheSize();
+        }
+    };
+
+    @Transactional(readOnly = true)
+    public SlotLayout get(Long mediaId) {
+        long loadGeneration;
+        synchronized (layouts) {
+            SlotLayout slotLayout = layouts.get(mediaId);
+            if (slotLayout != null) {
+                return slotLayout;
+            }
+            loadGeneration = generation;
+        }
+
+        List<SlotCoordinateRow> rows = parkingSlotInfoRepository.findLayoutRowsByMediaId(mediaId);
+        if (rows.isEmpty()) {
+            throw new RuntimeException("Slot info not found.");
+        }
+        SlotLayout slotLayout = SlotLayout.fromCoordinateRows(rows);
+        synchronized (layouts) {
+            if (generation == loadGeneration) {
+                layouts.put(mediaId, slotLayout);
+            }
+        }
+        return slotLayout;
+    }
+
+    public void invalidate(Long mediaId) {
+        remove(mediaId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    remove(mediaId);
+                }
+            });
+        }
+    }
+
+    private void remove(Long mediaId) {
+        synchronized (layouts) {
+            generation++;
+            layouts.remove(mediaId);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package org.psd.parkingspacedetector.service.mat;
+
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+/**
+ * Arena for the native {@link Mat}s of one frame, request or run. Every Mat
+ * created or tracked through a scope is registered with
+ * {@link NativeMatTracker} and released, newest first, when the scope
+ * closes, instead of whenever the garbage collector finalizes it. Scopes
+ * may be shared by the workers analysing slots of the same frame.
+ */
+public class MatScope implements AutoCloseable {
+
+    private final Deque<Mat> mats = new ConcurrentLinkedDeque<>();
+
+    public Mat newMat() {
+        return track(new Mat());
+    }
+
+    public Mat submat(Mat mat, Rect region) {
+        return track(mat.submat(region));
+    }
+
+    public Mat track(Mat mat) {
+        mats.push(NativeMatTracker.track(mat));
+        return mat;
+    }
+
+    @Override
+    public void close() {
+        Mat mat;
+        while ((mat = mats.poll()) != null) {
+            NativeMatTracker.release(mat);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package org.psd.parkingspacedetector.service.mat;
+
+import org.opencv.core.Mat;
+import org.psd.parkingspacedetector.dto.response.NativeMemoryStatsDTO;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide registry of the native {@link Mat}s the image pipeline owns.
+ * Live bytes are summed over Mats that own their data, so sub-matrix views
+ * count as live Mats without counting their parent's pixels twice.
+ */
+public final class NativeMatTracker {
+
+    private static final Set<Mat> LIVE_MATS = ConcurrentHashMap.newKeySet();
+    private static final LongAdder ALLOCATED = new LongAdder();
+    private static final LongAdder RELEASED = new LongAdder();
+
+    private NativeMatTracker() {
+    }
+
+    public static Mat track(Mat mat) {
+        if (LIVE_MATS.add(mat)) {
+            ALLOCATED.increment();
+        }
+        return mat;
+    }
+
+    public static void release(Mat mat) {
+        if (LIVE_MATS.remove(mat)) {
+            RELEASED.increment();
+        }
+        mat.release();
+    }
+
+    public static int getLiveMats() {
+        return LIVE_MATS.size();
+    }
+
+    public static NativeMemoryStatsDTO getStats() {
+        long liveBytes = 0;
+        int liveMats = 0;
+        for (Mat mat : LIVE_MATS) {
+            liveMats++;
+            if (!mat.isSubmatrix()) {
+                liveBytes += mat.total() * mat.elemSize();
+            }
+        }
+        return new NativeMemoryStatsDTO(liveMats, liveBytes, ALLOCATED.sum(), RELEASED.sum());
+    }
+}
@@ -0,0 +1,31 @@
+package org.psd.parkingspacedetector.service.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+@Component
+@RequiredArgsConstructor
+public class DetectorMetrics {
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<Long, PipelineMeters> pipelineMeters = new ConcurrentHashMap<>();
+
+    public PipelineMeters forLayout(Long layoutId) {
+        return pipelineMeters.computeIfAbsent(layoutId, id -> new PipelineMeters(meterRegistry, id));
+    }
+
+    public void modelLoaded(String format, long loadNanos) {
+        Timer.builder("detector.model.load")
+                .description("Time to load a model into the cache")
+                .tag("format", format)
+                .register(meterRegistry)
+                .record(loadNanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,76 @@
+package org.psd.parkingspacedetector.service.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters of the detection pipeline of one layout, i.e. one camera. Stage
+ * timers publish histograms, so fps and the cost per slot can be derived per
+ * camera from the scrape, e.g. the stage time over {@code detector.slots.classified}.
+ */
+public final class PipelineMeters {
+
+    // meters of an empty composite registry record nothing
+    public static final PipelineMeters NONE = new PipelineMeters(new CompositeMeterRegistry(), null);
+
+    private final Counter framesRead;
+    private final Counter framesAnalysed;
+    private final Counter slotsEvaluated;
+    private final Counter slotsClassified;
+    private final Timer decode;
+    private final Timer normalize;
+    private final Timer features;
+    private final Timer svm;
+    private final Timer encode;
+
+    PipelineMeters(MeterRegistry registry, Long layoutId) {
+        String layout = layoutId != null ? layoutId.toString() : "none";
+        framesRead = counter(registry, "detector.frames.read", "Frames grabbed from the source", layout);
+        framesAnalysed = counter(registry, "detector.frames.analysed", "Frames whose slots were evaluated", layout);
+        slotsEvaluated = counter(registry, "detector.slots.evaluated", "Slots checked for changes", layout);
+        slotsClassified = counter(registry, "detector.slots.classified", "Slots whose features were extracted and classified", layout);
+        decode = stageTimer(registry, "decode", layout);
+        normalize = stageTimer(registry, "normalize", layout);
+        features = stageTimer(registry, "features", layout);
+        svm = stageTimer(registry, "svm", layout);
+        encode = stageTimer(registry, "encode", layout);
+    }
+
+    public void frameRead(long decodeNanos) {
+        framesRead.increment();
+        decode.record(decodeNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void frameAnalysed(long normalizeNanos, long featuresNanos, long svmNanos, int slots, int classifiedSlots) {
+        framesAnalysed.increment();
+        slotsEvaluated.increment(slots);
+        slotsClassified.increment(classifiedSlots);
+        normalize.record(normalizeNanos, TimeUnit.NANOSECONDS);
+        features.record(featuresNanos, TimeUnit.NANOSECONDS);
+        svm.record(svmNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void frameEncoded(long encodeNanos) {
+        encode.record(encodeNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static Counter counter(MeterRegistry registry, String name, String description, String layout) {
+        return Counter.builder(name)
+                .description(description)
+                .tag("layout", layout)
+                .register(registry);
+    }
+
+    private static Timer stageTimer(MeterRegistry registry, String stage, String layout) {
+        return Timer.builder("detector.stage.duration")
+                .description("Time spent per frame in a pipeline stage")
+                .tag("stage", stage)
+                .tag("layout", layout)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+}
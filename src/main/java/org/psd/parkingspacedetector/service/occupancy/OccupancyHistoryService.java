@@ -0,0 +1,29 @@
+package org.psd.parkingspacedetector.service.occupancy;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.psd.parkingspacedetector.dto.response.OccupancyIntervalDTO;
+import org.psd.parkingspacedetector.dto.response.SlotUtilizationDTO;
+import org.psd.parkingspacedetector.repository.OccupancyTransitionRepository;
+
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class OccupancyHistoryService {
+
+    private final OccupancyTransitionRepository occupancyTransitionRepository;
+
+    @Transactional(readOnly = true)
+    public List<OccupancyIntervalDTO> getIntervals(Long layoutId, long from, long to, Integer slotIndex) {
+        if (from >= to) {
+            throw new RuntimeException("Range start must be before its end.");
+        }
+        return OccupancyIntervals.stitch(occupancyTransitionRepository.findInRange(layoutId, slotIndex, from, to), from, to);
+    }
+
+    public List<SlotUtilizationDTO> getUtilization(Long layoutId, long from, long to, Integer slotIndex) {
+        return OccupancyIntervals.utilization(getIntervals(layoutId, from, to, slotIndex));
+    }
+}
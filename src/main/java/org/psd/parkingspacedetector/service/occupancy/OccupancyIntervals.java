@@ -0,0 +1,90 @@
+package org.psd.parkingspacedetector.service.occupancy;
+
+import org.psd.parkingspacedetector.dto.response.OccupancyIntervalDTO;
+import org.psd.parkingspacedetector.dto.response.SlotUtilizationDTO;
+import org.psd.parkingspacedetector.entity.OccupancyTransition;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Expands stored transitions into occupancy runs clipped to a time range.
+ * Transitions must be ordered by source, slot and time; a transition that
+ * repeats the current state extends the run instead of starting a new one,
+ * and a run with an unknown state, started by an end-of-source marker,
+ * produces no interval.
+ */
+public final class OccupancyIntervals {
+
+    private OccupancyIntervals() {
+    }
+
+    public static List<OccupancyIntervalDTO> stitch(List<OccupancyTransition> transitions, long from, long to) {
+        List<OccupancyIntervalDTO> intervals = new ArrayList<>();
+        OccupancyTransition runStart = null;
+        for (OccupancyTransition transition : transitions) {
+            if (runStart != null && isSameSlot(runStart, transition)) {
+                if (Objects.equals(runStart.getOccupied(), transition.getOccupied())) {
+                    continue;
+                }
+                addInterval(intervals, runStart, from, transition.getObservedAt());
+            } else if (runStart != null) {
+                addInterval(intervals, runStart, from, to);
+            }
+            runStart = transition;
+        }
+        if (runStart != null) {
+            addInterval(intervals, runStart, from, to);
+        }
+        return intervals;
+    }
+
+    /**
+     * Per source and slot: time with a known state, time occupied and the
+     * number of empty-to-occupied changes, from intervals ordered as
+     * returned by {@link #stitch}.
+     */
+    public static List<SlotUtilizationDTO> utilization(List<OccupancyIntervalDTO> intervals) {
+        List<SlotUtilizationDTO> utilization = new ArrayList<>();
+        int start = 0;
+        while (start < intervals.size()) {
+            OccupancyIntervalDTO first = intervals.get(start);
+            long observed = 0;
+            long occupied = 0;
+            int arrivals = 0;
+            int end = start;
+            for (; end < intervals.size() && isSameSlot(first, intervals.get(end)); end++) {
+                OccupancyIntervalDTO interval = intervals.get(end);
+                long duration = interval.endedAt() - interval.startedAt();
+                observed += duration;
+                if (interval.occupied()) {
+                    occupied += duration;
+                    if (end > start && !intervals.get(end - 1).occupied()) {
+                        arrivals++;
+                    }
+                }
+            }
+            utilization.add(new SlotUtilizationDTO(first.sourceId(), first.slotIndex(), observed, occupied,
+                    observed == 0 ? 0 : (double) occupied / observed, arrivals));
+            start = end;
+        }
+        return utilization;
+    }
+
+    private static void addInterval(List<OccupancyIntervalDTO> intervals, OccupancyTransition runStart, long from, long end) {
+        long startedAt = Math.max(runStart.getObservedAt(), from);
+        if (runStart.getOccupied() != null && end > startedAt) {
+            intervals.add(new OccupancyIntervalDTO(runStart.getSourceId(), runStart.getSlotIndex(), runStart.getOccupied(),
+                    startedAt, end));
+        }
+    }
+
+    private static boolean isSameSlot(OccupancyTransition a, OccupancyTransition b) {
+        return Objects.equals(a.getSourceId(), b.getSourceId()) && Objects.equals(a.getSlotIndex(), b.getSlotIndex());
+    }
+
+    private static boolean isSameSlot(OccupancyIntervalDTO a, OccupancyIntervalDTO b) {
+        return Objects.equals(a.sourceId(), b.sourceId()) && a.slotIndex() == b.slotIndex();
+    }
+}
@@ -0,0 +1,78 @@
+package org.psd.parkingspacedetector.service.occupancy;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.psd.parkingspacedetector.configuration.DetectorConfig;
+import org.psd.parkingspacedetector.repository.OccupancyTransitionBatchRepository;
+import org.psd.parkingspacedetector.service.stream.OccupancyEvent;
+import org.psd.parkingspacedetector.service.stream.OccupancyListener;
+import org.psd.parkingspacedetector.service.stream.OccupancyPublisher;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Persists every published occupancy change as a transition row. Events
+ * are only queued on the analysis thread; {@link OccupancyWriter} inserts
+ * them in JDBC batches. A restarted source has its rows deleted first, so
+ * analysing a video again replaces its history instead of duplicating it.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OccupancyRecorder implements OccupancyListener {
+
+    private final OccupancyPublisher occupancyPublisher;
+    private final OccupancyTransitionBatchRepository occupancyTransitionBatchRepository;
+    private final DetectorConfig detectorConfig;
+
+    private final AtomicLong dropped = new AtomicLong();
+    private OccupancyWriter writer;
+
+    @PostConstruct
+    public void register() {
+        if (!detectorConfig.isOccupancyRecordEnabled()) {
+            return;
+        }
+        writer = new OccupancyWriter(detectorConfig.getOccupancyRecordQueueSize(), detectorConfig.getOccupancyRecordBatchSize(),
+                detectorConfig.getOccupancyRecordLingerMillis(), occupancyTransitionBatchRepository::insertAll);
+        writer.start();
+        occupancyPublisher.addListener(this);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (writer != null) {
+            occupancyPublisher.removeListener(this);
+            writer.close();
+        }
+    }
+
+    @Override
+    public void onOccupancyChanged(OccupancyEvent event) {
+        if (!writer.offer(event)) {
+            long count = dropped.incrementAndGet();
+            if (count % 1000 == 1) {
+                log.warn("Occupancy recording queue is full, {} transitions dropped so far", count);
+            }
+        }
+    }
+
+    @Override
+    public void onSourceRestarted(Long layoutId, Long sourceId) {
+        // queued so transitions of the previous run still waiting in the writer are deleted too
+        writer.submit(() -> {
+            int deleted = occupancyTransitionBatchRepository.deleteSource(layoutId, sourceId);
+            if (deleted > 0) {
+                log.info("Replacing {} recorded transitions of source {}", deleted, sourceId);
+            }
+        });
+    }
+
+    @Override
+    public void onSourceStopped(Long layoutId, Long sourceId, long endedAt) {
+        writer.submit(() -> occupancyTransitionBatchRepository.insertEndMarkers(layoutId, sourceId, endedAt));
+    }
+}
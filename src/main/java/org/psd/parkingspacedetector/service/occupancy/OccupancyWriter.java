@@ -0,0 +1,154 @@
+package org.psd.parkingspacedetector.service.occupancy;
+
+import lombok.extern.slf4j.Slf4j;
+import org.psd.parkingspacedetector.service.stream.OccupancyEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Hands occupancy transitions from analysis threads to a single writer
+ * thread. Offering never blocks: when the queue is full the event is
+ * rejected. The writer waits up to lingerMillis after the first pending
+ * event so transitions arriving together are written as one batch, and
+ * flushes whatever is queued when closed. Submitted commands run on the
+ * writer thread in queue order, after every event queued before them has
+ * been written.
+ */
+@Slf4j
+public class OccupancyWriter implements AutoCloseable {
+
+    private record Entry(OccupancyEvent event, Runnable command) {
+    }
+
+    private final BlockingQueue<Entry> pending;
+    private final int batchSize;
+    private final long lingerNanos;
+    private final Consumer<List<OccupancyEvent>> sink;
+    private final Thread worker;
+
+    public OccupancyWriter(int queueSize, int batchSize, long lingerMillis, Consumer<List<OccupancyEvent>> sink) {
+        this.pending = new ArrayBlockingQueue<>(queueSize);
+        this.batchSize = batchSize;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+        this.sink = sink;
+        this.worker = new Thread(this::run, "occupancy-writer");
+        this.worker.setDaemon(true);
+    }
+
+    public void start() {
+        worker.start();
+    }
+
+    public boolean offer(OccupancyEvent event) {
+        return pending.offer(new Entry(event, null));
+    }
+
+    /**
+     * Queues a command, waiting for room if the queue is full.
+     */
+    public void submit(Runnable command) {
+        try {
+            pending.put(new Entry(null, command));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while queueing an occupancy command.", e);
+        }
+    }
+
+    public int getPending() {
+        return pending.size();
+    }
+
+    @Override
+    public void close() {
+        worker.interrupt();
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        List<OccupancyEvent> batch = new ArrayList<>(batchSize);
+        try {
+            while (true) {
+                Runnable command = fillBatch(batch);
+                write(batch);
+                execute(command);
+            }
+        } catch (InterruptedException e) {
+            Entry entry;
+            while ((entry = pending.poll()) != null) {
+                if (entry.command() != null) {
+                    write(batch);
+                    execute(entry.command());
+                    continue;
+                }
+                batch.add(entry.event());
+                if (batch.size() >= batchSize) {
+                    write(batch);
+                }
+            }
+            write(batch);
+        }
+    }
+
+    /**
+     * Collects events into the batch until it is full, the linger time is
+     * over or a command is reached; returns that command, if any.
+     */
+    private Runnable fillBatch(List<OccupancyEvent> batch) throws InterruptedException {
+        Entry entry = pending.take();
+        long deadline = System.nanoTime() + lingerNanos;
+        while (true) {
+            if (entry.command() != null) {
+                return entry.command();
+            }
+            batch.add(entry.event());
+            if (batch.size() >= batchSize) {
+                return null;
+            }
+            entry = pending.poll();
+            if (entry == null) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return null;
+                }
+                entry = pending.poll(remaining, TimeUnit.NANOSECONDS);
+                if (entry == null) {
+                    return null;
+                }
+            }
+        }
+    }
+
+    private void execute(Runnable command) {
+        if (command == null) {
+            return;
+        }
+        try {
+            command.run();
+        } catch (Exception e) {
+            log.error("Failed to run occupancy command", e);
+        }
+    }
+
+    private void write(List<OccupancyEvent> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            sink.accept(batch);
+        } catch (Exception e) {
+            log.error("Failed to record " + batch.size() + " occupancy transitions", e);
+        } finally {
+            batch.clear();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package org.psd.parkingspacedetector.service.output;
+
+import org.opencv.core.Mat;
+import org.psd.parkingspacedetector.service.FramePredictions;
+import org.psd.parkingspacedetector.service.layout.SlotLayout;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * One row per slot of every sampled frame.
+ */
+public class CsvResultWriter implements DetectionResultWriter {
+
+    public static final String HEADER = "frame,timestamp_ms,slot_index,occupied,confidence";
+
+    private final SlotLayout slotLayout;
+    private final BufferedWriter writer;
+
+    public CsvResultWriter(Path path, SlotLayout slotLayout) throws IOException {
+        this.slotLayout = slotLayout;
+        this.writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+        writer.write(HEADER);
+        writer.newLine();
+    }
+
+    @Override
+    public void write(long frameIndex, long timestamp, Mat frame, FramePredictions predictions, boolean changed) throws IOException {
+        StringBuilder row = new StringBuilder(64);
+        for (int i = 0; i < predictions.size(); i++) {
+            row.setLength(0);
+            row.append(frameIndex).append(',')
+                    .append(timestamp).append(',')
+                    .append(slotLayout.slotIndex(i)).append(',')
+                    .append(predictions.isOccupied(i)).append(',')
+                    .append(predictions.confidences()[i]);
+            writer.append(row);
+            writer.newLine();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
@@ -0,0 +1,16 @@
+package org.psd.parkingspacedetector.service.output;
+
+import org.opencv.core.Mat;
+import org.psd.parkingspacedetector.service.FramePredictions;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Sink for the predictions of sampled frames of a detection run that does
+ * not produce an annotated video.
+ */
+public interface DetectionResultWriter extends Closeable {
+
+    void write(long frameIndex, long timestamp, Mat frame, FramePredictions predictions, boolean changed) throws IOException;
+}
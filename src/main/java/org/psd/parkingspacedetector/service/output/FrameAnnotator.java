@@ -0,0 +1,23 @@
+package org.psd.parkingspacedetector.service.output;
+
+import org.opencv.core.Mat;
+import org.opencv.core.Scalar;
+import org.opencv.imgproc.Imgproc;
+import org.psd.parkingspacedetector.service.FramePredictions;
+import org.psd.parkingspacedetector.service.layout.SlotLayout;
+
+public final class FrameAnnotator {
+
+    private static final Scalar OCCUPIED_COLOR = new Scalar(0, 0, 255);
+    private static final Scalar EMPTY_COLOR = new Scalar(0, 255, 0);
+
+    private FrameAnnotator() {
+    }
+
+    public static void drawPredictions(Mat frame, SlotLayout slotLayout, FramePredictions predictions) {
+        for (int i = 0; i < predictions.size(); i++) {
+            Scalar color = predictions.isOccupied(i) ? OCCUPIED_COLOR : EMPTY_COLOR;
+            Imgproc.rectangle(frame, slotLayout.rect(i), color, 2);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package org.psd.parkingspacedetector.service.output;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.opencv.core.Mat;
+import org.psd.parkingspacedetector.service.FramePredictions;
+import org.psd.parkingspacedetector.service.layout.SlotLayout;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Streams the run as {"slotIndexes": [...], "samples": [{"frame", "timestampMs",
+ * "occupied": [...], "confidences": [...]}]}, with per-slot arrays in
+ * slotIndexes order, so memory use does not grow with the video length.
+ */
+public class JsonResultWriter implements DetectionResultWriter {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final JsonGenerator generator;
+
+    public JsonResultWriter(Path path, SlotLayout slotLayout) throws IOException {
+        this.generator = JSON_FACTORY.createGenerator(path.toFile(), JsonEncoding.UTF8);
+        generator.writeStartObject();
+        generator.writeArrayFieldStart("slotIndexes");
+        for (int i = 0; i < slotLayout.size(); i++) {
+            generator.writeNumber(slotLayout.slotIndex(i));
+        }
+        generator.writeEndArray();
+        generator.writeArrayFieldStart("samples");
+    }
+
+    @Override
+    public void write(long frameIndex, long timestamp, Mat frame, FramePredictions predictions, boolean changed) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("frame", frameIndex);
+        generator.writeNumberField("timestampMs", timestamp);
+        generator.writeArrayFieldStart("occupied");
+        for (int i = 0; i < predictions.size(); i++) {
+            generator.writeBoolean(predictions.isOccupied(i));
+        }
+        generator.writeEndArray();
+        generator.writeFieldName("confidences");
+        generator.writeArray(predictions.confidences(), 0, predictions.size());
+        generator.writeEndObject();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            generator.writeEndArray();
+            generator.writeEndObject();
+        } finally {
+            generator.close();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package org.psd.parkingspacedetector.service.output;
+
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfByte;
+import org.opencv.imgcodecs.Imgcodecs;
+import org.psd.parkingspacedetector.service.FramePredictions;
+import org.psd.parkingspacedetector.service.layout.SlotLayout;
+import org.psd.parkingspacedetector.service.mat.MatScope;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Zip of annotated JPEGs of the first sampled frame and of every sampled
+ * frame where a slot changed state.
+ */
+public class KeyframeArchiveWriter implements DetectionResultWriter {
+
+    private final SlotLayout slotLayout;
+    private final ZipOutputStream zip;
+    private boolean first = true;
+
+    public KeyframeArchiveWriter(Path path, SlotLayout slotLayout) throws IOException {
+        this.slotLayout = slotLayout;
+        this.zip = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(path)));
+        zip.setLevel(0);
+    }
+
+    @Override
+    public void write(long frameIndex, long timestamp, Mat frame, FramePredictions predictions, boolean changed) throws IOException {
+        if (!first && !changed) {
+            return;
+        }
+        first = false;
+        FrameAnnotator.drawPredictions(frame, slotLayout, predictions);
+        try (MatScope scope = new MatScope()) {
+            MatOfByte jpeg = new MatOfByte();
+            scope.track(jpeg);
+            if (!Imgcodecs.imencode(".jpg", frame, jpeg)) {
+                throw new IOException("Failed to encode keyframe " + frameIndex + ".");
+            }
+            zip.putNextEntry(new ZipEntry(String.format("frame_%08d_%dms.jpg", frameIndex, timestamp)));
+            zip.write(jpeg.toArray());
+            zip.closeEntry();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        zip.close();
+    }
+}
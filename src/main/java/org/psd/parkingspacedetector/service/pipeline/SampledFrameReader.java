@@ -0,0 +1,108 @@
+package org.psd.parkingspacedetector.service.pipeline;
+
+import org.opencv.core.Mat;
+import org.opencv.videoio.VideoCapture;
+import org.opencv.videoio.Videoio;
+import org.psd.parkingspacedetector.enums.EnumFrameSampling;
+import org.psd.parkingspacedetector.service.mat.MatScope;
+import org.psd.parkingspacedetector.service.metrics.PipelineMeters;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Reads only every frameInterval-th frame of a video and never encodes.
+ * With {@link EnumFrameSampling#GRAB} the frames in between are grabbed but
+ * not retrieved, which skips the pixel conversion and the copy into a
+ * {@link Mat}. With {@link EnumFrameSampling#SEEK} the capture is
+ * positioned on each sampled frame, so the decoder only works from the
+ * keyframe before it.
+ */
+public class SampledFrameReader {
+
+    private final VideoCapture video;
+    private final int frameInterval;
+    private final EnumFrameSampling sampling;
+    private final PipelineMeters meters;
+
+    public SampledFrameReader(VideoCapture video, int frameInterval, PipelineMeters meters) {
+        this(video, frameInterval, EnumFrameSampling.GRAB, meters);
+    }
+
+    public SampledFrameReader(VideoCapture video, int frameInterval, EnumFrameSampling sampling, PipelineMeters meters) {
+        if (frameInterval < 1) {
+            throw new IllegalArgumentException("Frame interval must be positive.");
+        }
+        this.video = video;
+        this.frameInterval = frameInterval;
+        this.sampling = sampling;
+        this.meters = meters;
+    }
+
+    /**
+     * Calls the processor with each sampled frame and reports the position
+     * in the video as frames are passed; returns the number of sampled
+     * frames.
+     */
+    public long run(VideoPipeline.FrameProcessor processor, LongConsumer progress) {
+        try (MatScope mats = new MatScope()) {
+            Mat frame = mats.newMat();
+            if (sampling == EnumFrameSampling.SEEK && frameInterval > 1) {
+                return runSeeking(frame, processor, progress);
+            }
+            return runGrabbing(frame, processor, progress);
+        }
+    }
+
+    private long runGrabbing(Mat frame, VideoPipeline.FrameProcessor processor, LongConsumer progress) {
+        long samples = 0;
+        long frameIndex = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            long start = System.nanoTime();
+            if (!video.grab()) {
+                break;
+            }
+            boolean sampled = frameIndex % frameInterval == 0;
+            if (sampled && !video.retrieve(frame)) {
+                break;
+            }
+            meters.frameRead(System.nanoTime() - start);
+            if (sampled) {
+                processor.process(frameIndex, frame);
+                samples++;
+            }
+            progress.accept(++frameIndex);
+        }
+        return samples;
+    }
+
+    private long runSeeking(Mat frame, VideoPipeline.FrameProcessor processor, LongConsumer progress) {
+        long samples = 0;
+        long position = 0;
+        boolean seekable = true;
+        for (long frameIndex = 0; !Thread.currentThread().isInterrupted(); frameIndex += frameInterval) {
+            long start = System.nanoTime();
+            if (frameIndex > position) {
+                if (seekable && video.set(Videoio.CAP_PROP_POS_FRAMES, frameIndex)) {
+                    position = frameIndex;
+                } else {
+                    seekable = false;
+                    while (position < frameIndex && video.grab()) {
+                        position++;
+                    }
+                    if (position < frameIndex) {
+                        break;
+                    }
+                }
+            }
+            if (!video.read(frame)) {
+                break;
+            }
+            position++;
+            meters.frameRead(System.nanoTime() - start);
+            processor.process(frameIndex, frame);
+            samples++;
+            progress.accept(position);
+        }
+        return samples;
+    }
+}
@@ -0,0 +1,162 @@
+package org.psd.parkingspacedetector.service.pipeline;
+
+import lombok.extern.slf4j.Slf4j;
+import org.opencv.core.Mat;
+import org.opencv.videoio.VideoCapture;
+import org.opencv.videoio.VideoWriter;
+import org.psd.parkingspacedetector.service.mat.MatScope;
+import org.psd.parkingspacedetector.service.metrics.PipelineMeters;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Decode, analyse and encode stages of one video joined by bounded queues.
+ * Decoding and encoding run on their own threads, analysis runs on the
+ * caller. Frames travel in pooled {@link Mat}s, so a slow stage blocks the
+ * decoder instead of letting frames pile up, and each stage is single
+ * threaded, so frames reach the writer in their original order.
+ */
+@Slf4j
+public class VideoPipeline {
+
+    public interface FrameProcessor {
+        void process(long frameIndex, Mat frame);
+    }
+
+    private record Frame(long index, Mat mat) {
+    }
+
+    private static final Frame END_OF_STREAM = new Frame(-1, null);
+
+    private final VideoCapture video;
+    private final VideoWriter videoWriter;
+    private final PipelineMeters meters;
+    private final MatScope buffers = new MatScope();
+    private final BlockingQueue<Mat> freeBuffers;
+    private final BlockingQueue<Frame> decodedFrames;
+    private final BlockingQueue<Frame> processedFrames;
+    private final List<Thread> stages = new ArrayList<>();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    public VideoPipeline(VideoCapture video, VideoWriter videoWriter, int queueSize) {
+        this(video, videoWriter, queueSize, PipelineMeters.NONE);
+    }
+
+    public VideoPipeline(VideoCapture video, VideoWriter videoWriter, int queueSize, PipelineMeters meters) {
+        this.video = video;
+        this.videoWriter = videoWriter;
+        this.meters = meters;
+        this.decodedFrames = new ArrayBlockingQueue<>(queueSize);
+        this.processedFrames = new ArrayBlockingQueue<>(queueSize);
+
+        int bufferCount = 2 * queueSize + 3;
+        this.freeBuffers = new ArrayBlockingQueue<>(bufferCount);
+        for (int i = 0; i < bufferCount; i++) {
+            freeBuffers.add(buffers.newMat());
+        }
+    }
+
+    public void run(FrameProcessor processor) {
+        Thread decoder = new Thread(() -> runStage(this::decode), "video-decoder");
+        Thread encoder = new Thread(() -> runStage(this::encode), "video-encoder");
+        stages.add(Thread.currentThread());
+        stages.add(decoder);
+        stages.add(encoder);
+
+        decoder.start();
+        encoder.start();
+        try {
+            runStage(() -> analyse(processor));
+        } finally {
+            awaitTermination(decoder);
+            awaitTermination(encoder);
+            buffers.close();
+        }
+
+        Throwable cause = failure.get();
+        if (cause == null) {
+            return;
+        }
+        if (cause instanceof InterruptedException) {
+            Thread.currentThread().interrupt();
+        } else {
+            Thread.interrupted();
+        }
+        throw new RuntimeException("Video processing failed.", cause);
+    }
+
+    private void decode() throws InterruptedException {
+        long frameIndex = 0;
+        while (true) {
+            Mat buffer = freeBuffers.take();
+            long start = System.nanoTime();
+            if (!video.read(buffer)) {
+                freeBuffers.put(buffer);
+                break;
+            }
+            meters.frameRead(System.nanoTime() - start);
+            decodedFrames.put(new Frame(frameIndex++, buffer));
+        }
+        decodedFrames.put(END_OF_STREAM);
+    }
+
+    private void analyse(FrameProcessor processor) throws InterruptedException {
+        while (true) {
+            Frame frame = decodedFrames.take();
+            if (frame == END_OF_STREAM) {
+                processedFrames.put(END_OF_STREAM);
+                return;
+            }
+            processor.process(frame.index(), frame.mat());
+            processedFrames.put(frame);
+        }
+    }
+
+    private void encode() throws InterruptedException {
+        while (true) {
+            Frame frame = processedFrames.take();
+            if (frame == END_OF_STREAM) {
+                return;
+            }
+            long start = System.nanoTime();
+            videoWriter.write(frame.mat());
+            meters.frameEncoded(System.nanoTime() - start);
+            freeBuffers.put(frame.mat());
+        }
+    }
+
+    private void runStage(Stage stage) {
+        try {
+            stage.run();
+        } catch (Throwable e) {
+            fail(e);
+        }
+    }
+
+    private void awaitTermination(Thread stage) {
+        while (stage.isAlive()) {
+            try {
+                stage.join();
+            } catch (InterruptedException e) {
+                fail(e);
+            }
+        }
+    }
+
+    private void fail(Throwable cause) {
+        if (failure.compareAndSet(null, cause)) {
+            log.error("Video pipeline stage {} failed", Thread.currentThread().getName(), cause);
+            stages.stream()
+                    .filter(thread -> thread != Thread.currentThread())
+                    .forEach(Thread::interrupt);
+        }
+    }
+
+    private interface Stage {
+        void run() throws InterruptedException;
+    }
+}
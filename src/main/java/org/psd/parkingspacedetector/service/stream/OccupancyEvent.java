@@ -0,0 +1,10 @@
+package org.psd.parkingspacedetector.service.stream;
+
+public record OccupancyEvent(
+        Long layoutId,
+        Long sourceId,
+        int slotIndex,
+        boolean occupied,
+        double confidence,
+        long timestamp) {
+}
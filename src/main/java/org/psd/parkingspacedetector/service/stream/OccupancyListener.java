@@ -0,0 +1,20 @@
+package org.psd.parkingspacedetector.service.stream;
+
+public interface OccupancyListener {
+
+    void onOccupancyChanged(OccupancyEvent event);
+
+    /**
+     * A recorded source is being analysed again from its start, superseding
+     * every earlier change it published.
+     */
+    default void onSourceRestarted(Long layoutId, Long sourceId) {
+    }
+
+    /**
+     * A source stopped being analysed; the state of its slots is unknown
+     * from endedAt on.
+     */
+    default void onSourceStopped(Long layoutId, Long sourceId, long endedAt) {
+    }
+}
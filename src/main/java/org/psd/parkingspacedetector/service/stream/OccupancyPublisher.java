@@ -0,0 +1,57 @@
+package org.psd.parkingspacedetector.service.stream;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+@Slf4j
+@Component
+public class OccupancyPublisher implements OccupancyListener {
+
+    private final List<OccupancyListener> listeners = new CopyOnWriteArrayList<>();
+
+    public void addListener(OccupancyListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(OccupancyListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public void onOccupancyChanged(OccupancyEvent event) {
+        log.debug("Slot {} of layout {} (source {}) is now {}", event.slotIndex(), event.layoutId(), event.sourceId(),
+                event.occupied() ? "occupied" : "empty");
+        for (OccupancyListener listener : listeners) {
+            try {
+                listener.onOccupancyChanged(event);
+            } catch (Exception e) {
+                log.error("Occupancy listener failed", e);
+            }
+        }
+    }
+
+    @Override
+    public void onSourceRestarted(Long layoutId, Long sourceId) {
+        for (OccupancyListener listener : listeners) {
+            try {
+                listener.onSourceRestarted(layoutId, sourceId);
+            } catch (Exception e) {
+                log.error("Occupancy listener failed", e);
+            }
+        }
+    }
+
+    @Override
+    public void onSourceStopped(Long layoutId, Long sourceId, long endedAt) {
+        for (OccupancyListener listener : listeners) {
+            try {
+                listener.onSourceStopped(layoutId, sourceId, endedAt);
+            } catch (Exception e) {
+                log.error("Occupancy listener failed", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package org.psd.parkingspacedetector.service.stream;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.psd.parkingspacedetector.configuration.DetectorConfig;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Pushes occupancy changes to Server-Sent Event subscribers of a layout.
+ * Publishing only records the event in the subscriber's pending map, keyed
+ * by source and slot, so a newer state replaces an undelivered older one
+ * and a slow client never blocks the analysis thread; delivery happens on
+ * occupancyPushExecutor with at most one drain in flight per subscriber.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OccupancySseBroadcaster implements OccupancyListener {
+
+    private final OccupancyPublisher occupancyPublisher;
+    private final ThreadPoolExecutor occupancyPushExecutor;
+    private final DetectorConfig detectorConfig;
+
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void register() {
+        occupancyPublisher.addListener(this);
+    }
+
+    public SseEmitter subscribe(Long layoutId) {
+        return subscribe(layoutId, new SseEmitter(detectorConfig.getSseTimeoutMillis()));
+    }
+
+    SseEmitter subscribe(Long layoutId, SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(layoutId, emitter);
+        subscribers.computeIfAbsent(layoutId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+        return emitter;
+    }
+
+    @Override
+    public void onOccupancyChanged(OccupancyEvent event) {
+        Set<Subscriber> layoutSubscribers = subscribers.get(event.layoutId());
+        if (layoutSubscribers == null) {
+            return;
+        }
+        for (Subscriber subscriber : layoutSubscribers) {
+            if (subscriber.offer(event)) {
+                schedule(subscriber);
+            }
+        }
+    }
+
+    private void schedule(Subscriber subscriber) {
+        try {
+            occupancyPushExecutor.execute(() -> drain(subscriber));
+        } catch (RejectedExecutionException e) {
+            subscriber.release();
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        List<OccupancyEvent> events;
+        while (!(events = subscriber.takePending()).isEmpty()) {
+            try {
+                for (OccupancyEvent event : events) {
+                    subscriber.emitter().send(SseEmitter.event().name("occupancy").data(event));
+                }
+            } catch (Exception e) {
+                log.debug("Dropping occupancy subscriber of layout {}: {}", subscriber.layoutId(), e.getMessage());
+                remove(subscriber);
+                subscriber.emitter().completeWithError(e);
+                return;
+            }
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.layoutId(), (id, layoutSubscribers) -> {
+            layoutSubscribers.remove(subscriber);
+            return layoutSubscribers.isEmpty() ? null : layoutSubscribers;
+        });
+    }
+
+    int getSubscriberCount(Long layoutId) {
+        Set<Subscriber> layoutSubscribers = subscribers.get(layoutId);
+        return layoutSubscribers == null ? 0 : layoutSubscribers.size();
+    }
+
+    /**
+     * One SSE connection. Compared by identity, so it stays findable in its
+     * layout's set while its pending events change.
+     */
+    private static final class Subscriber {
+
+        private final Long layoutId;
+        private final SseEmitter emitter;
+        private final Map<String, OccupancyEvent> pending = new LinkedHashMap<>();
+        private boolean draining;
+
+        private Subscriber(Long layoutId, SseEmitter emitter) {
+            this.layoutId = layoutId;
+            this.emitter = emitter;
+        }
+
+        private Long layoutId() {
+            return layoutId;
+        }
+
+        private SseEmitter emitter() {
+            return emitter;
+        }
+
+        private synchronized boolean offer(OccupancyEvent event) {
+            String key = event.sourceId() + ":" + event.slotIndex();
+            pending.remove(key);
+            pending.put(key, event);
+            if (draining) {
+                return false;
+            }
+            draining = true;
+            return true;
+        }
+
+        private synchronized List<OccupancyEvent> takePending() {
+            if (pending.isEmpty()) {
+                draining = false;
+                return List.of();
+            }
+            List<OccupancyEvent> events = new ArrayList<>(pending.values());
+            pending.clear();
+            return events;
+        }
+
+        private synchronized void release() {
+            draining = false;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package org.psd.parkingspacedetector.service.stream;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.opencv.core.Mat;
+import org.opencv.videoio.VideoCapture;
+import org.psd.parkingspacedetector.dto.response.StreamSessionDTO;
+import org.psd.parkingspacedetector.service.FramePredictions;
+import org.psd.parkingspacedetector.service.layout.SlotLayout;
+import org.psd.parkingspacedetector.service.mat.MatScope;
+import org.psd.parkingspacedetector.service.metrics.PipelineMeters;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Long-running analysis of one camera stream. Frames are grabbed
+ * continuously so the source never backs up, but only decoded and
+ * classified once per sample interval. When the source ends or drops,
+ * the capture is reopened after a delay, which also loops local files.
+ * Attempts that analyse no frame, such as a source that fails to open or
+ * decode, double the delay up to {@value #MAX_BACKOFF_SHIFT} times, and the
+ * session gives up after maxFailedAttempts of them in a row (0 = never).
+ * When the session ends, the listener is told the stream stopped at the
+ * last analysed frame.
+ */
+@Slf4j
+public class StreamSession implements Runnable {
+
+    private static final int MAX_BACKOFF_SHIFT = 5;
+
+    public interface FrameClassifier {
+        FramePredictions classify(Mat frame);
+    }
+
+    @Getter
+    private final Long streamId;
+    @Getter
+    private final Long modelId;
+    private final Long layoutId;
+    private final String source;
+    private final SlotLayout slotLayout;
+    private final FrameClassifier classifier;
+    private final OccupancyListener listener;
+    private final PipelineMeters meters;
+    private final long sampleIntervalMillis;
+    private final long reconnectDelayMillis;
+    private final int maxFailedAttempts;
+
+    private final double[] slotStates;
+    private volatile boolean running = true;
+    private volatile boolean connected;
+    private volatile long framesAnalysed;
+    private volatile long lastAnalysedAt;
+    private volatile Thread worker;
+
+    public StreamSession(Long streamId, Long modelId, Long layoutId, String source, SlotLayout slotLayout, FrameClassifier classifier,
+                         OccupancyListener listener, PipelineMeters meters, long sampleIntervalMillis, long reconnectDelayMillis,
+                         int maxFailedAttempts) {
+        this.streamId = streamId;
+        this.modelId = modelId;
+        this.layoutId = layoutId;
+        this.source = source;
+        this.slotLayout = slotLayout;
+        this.classifier = classifier;
+        this.listener = listener;
+        this.meters = meters;
+        this.sampleIntervalMillis = sampleIntervalMillis;
+        this.reconnectDelayMillis = reconnectDelayMillis;
+        this.maxFailedAttempts = maxFailedAttempts;
+        this.slotStates = new double[slotLayout.size()];
+        Arrays.fill(slotStates, Double.NaN);
+    }
+
+    @Override
+    public void run() {
+        worker = Thread.currentThread();
+        MatScope mats = new MatScope();
+        Mat frame = mats.newMat();
+        int failedAttempts = 0;
+        try {
+            while (isActive()) {
+                long framesBefore = framesAnalysed;
+                VideoCapture capture = openCapture();
+                try {
+                    if (capture.isOpened()) {
+                        connected = true;
+                        analyse(capture, frame);
+                    } else {
+                        log.warn("Failed to open stream {}", streamId);
+                    }
+                } catch (Exception e) {
+                    log.error("Stream " + streamId + " failed", e);
+                } finally {
+                    connected = false;
+                    capture.release();
+                }
+                failedAttempts = framesAnalysed > framesBefore ? 0 : failedAttempts + 1;
+                if (maxFailedAttempts > 0 && failedAttempts >= maxFailedAttempts) {
+                    log.error("Stopping stream {} after {} attempts without a frame", streamId, failedAttempts);
+                    break;
+                }
+                if (isActive()) {
+                    Thread.sleep(reconnectDelayMillis << Math.min(Math.max(failedAttempts - 1, 0), MAX_BACKOFF_SHIFT));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            running = false;
+            mats.close();
+            if (framesAnalysed > 0) {
+                listener.onSourceStopped(layoutId, streamId, lastAnalysedAt);
+            }
+        }
+    }
+
+    public void stop() {
+        running = false;
+        Thread currentWorker = worker;
+        if (currentWorker != null) {
+            currentWorker.interrupt();
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public StreamSessionDTO toDto() {
+        List<Integer> occupiedSlotIndexes = new ArrayList<>();
+        synchronized (slotStates) {
+            for (int i = 0; i < slotStates.length; i++) {
+                if (slotStates[i] == 1.0) {
+                    occupiedSlotIndexes.add(slotLayout.slotIndex(i));
+                }
+            }
+        }
+        return new StreamSessionDTO(streamId, modelId, source, running, connected, framesAnalysed,
+                lastAnalysedAt == 0 ? null : lastAnalysedAt, slotLayout.size(), occupiedSlotIndexes);
+    }
+
+    private void analyse(VideoCapture capture, Mat frame) {
+        long nextSampleAt = 0;
+        while (isActive()) {
+            long start = System.nanoTime();
+            if (!capture.grab()) {
+                return;
+            }
+            long now = System.currentTimeMillis();
+            boolean sampled = now >= nextSampleAt;
+            if (sampled && !capture.retrieve(frame)) {
+                return;
+            }
+            meters.frameRead(System.nanoTime() - start);
+            if (sampled) {
+                nextSampleAt = now + sampleIntervalMillis;
+                publishChanges(classifier.classify(frame), now);
+            }
+        }
+    }
+
+    private void publishChanges(FramePredictions predictions, long timestamp) {
+        List<OccupancyEvent> events = new ArrayList<>();
+        synchronized (slotStates) {
+            for (int i = 0; i < predictions.size(); i++) {
+                if (predictions.predictions()[i] != slotStates[i]) {
+                    slotStates[i] = predictions.predictions()[i];
+                    events.add(new OccupancyEvent(layoutId, streamId, slotLayout.slotIndex(i), predictions.isOccupied(i),
+                            predictions.confidences()[i], timestamp));
+                }
+            }
+        }
+        framesAnalysed++;
+        lastAnalysedAt = timestamp;
+        events.forEach(listener::onOccupancyChanged);
+    }
+
+    private VideoCapture openCapture() {
+        if (!source.isEmpty() && source.chars().allMatch(Character::isDigit)) {
+            return new VideoCapture(Integer.parseInt(source));
+        }
+        return new VideoCapture(source);
+    }
+
+    private boolean isActive() {
+        return running && !Thread.currentThread().isInterrupted();
+    }
+}
@@ -0,0 +1,120 @@
+package org.psd.parkingspacedetector.service.stream;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.psd.parkingspacedetector.configuration.DetectorConfig;
+import org.psd.parkingspacedetector.entity.Media;
+import org.psd.parkingspacedetector.enums.EnumMediaType;
+import org.psd.parkingspacedetector.service.ImageProcessingService;
+import org.psd.parkingspacedetector.service.MediaService;
+import org.psd.parkingspacedetector.service.SvmModelCache;
+import org.psd.parkingspacedetector.service.feature.FrameNormalizer;
+import org.psd.parkingspacedetector.service.gate.SlotChangeGate;
+import org.psd.parkingspacedetector.service.layout.SlotLayout;
+import org.psd.parkingspacedetector.service.layout.SlotLayoutCache;
+import org.psd.parkingspacedetector.service.metrics.DetectorMetrics;
+import org.psd.parkingspacedetector.service.metrics.PipelineMeters;
+import org.psd.parkingspacedetector.service.svm.SvmPredictor;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StreamSessionService {
+
+    private final MediaService mediaService;
+    private final ImageProcessingService imageProcessingService;
+    private final SvmModelCache svmModelCache;
+    private final SlotLayoutCache slotLayoutCache;
+    private final OccupancyPublisher occupancyPublisher;
+    private final ThreadPoolExecutor streamSessionExecutor;
+    private final DetectorConfig detectorConfig;
+    private final DetectorMetrics detectorMetrics;
+
+    private final Map<Long, StreamSession> sessions = new ConcurrentHashMap<>();
+
+    public StreamSession start(Long streamId, Long modelId, Double sampleIntervalSeconds) {
+        Media stream = mediaService.getMediaById(streamId)
+                .orElseThrow(() -> new RuntimeException("Stream not found"));
+        if (stream.getMediaType() == null || stream.getMediaType().getId() != EnumMediaType.STREAM.getId()) {
+            throw new RuntimeException("Media is not a stream.");
+        }
+        Media model = mediaService.getMediaById(modelId)
+                .orElseThrow(() -> new RuntimeException("Related model not found"));
+        if (!Objects.equals(stream.getRefId(), model.getRefId())) {
+            throw new RuntimeException("Model and stream are not related.");
+        }
+
+        SlotLayout slotLayout = slotLayoutCache.get(model.getRefId());
+        SvmPredictor svmModel = svmModelCache.get(model);
+        SlotChangeGate changeGate = imageProcessingService.createChangeGate(slotLayout);
+        FrameNormalizer normalizer = new FrameNormalizer(slotLayout);
+        PipelineMeters meters = detectorMetrics.forLayout(model.getRefId());
+        double intervalSeconds = sampleIntervalSeconds != null ? sampleIntervalSeconds : detectorConfig.getStreamSampleIntervalSeconds();
+
+        StreamSession session = new StreamSession(
+                streamId,
+                modelId,
+                model.getRefId(),
+                stream.getOriginalPath(),
+                slotLayout,
+                frame -> imageProcessingService.classifyFrame(frame, slotLayout, svmModel, changeGate, normalizer, meters),
+                occupancyPublisher,
+                meters,
+                (long) (intervalSeconds * 1000),
+                detectorConfig.getStreamReconnectDelayMillis(),
+                detectorConfig.getStreamMaxFailedAttempts()
+        );
+        if (sessions.putIfAbsent(streamId, session) != null) {
+            normalizer.close();
+            throw new RuntimeException("Stream is already running.");
+        }
+
+        try {
+            streamSessionExecutor.execute(() -> {
+                try {
+                    session.run();
+                } finally {
+                    normalizer.close();
+                    sessions.remove(streamId, session);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            normalizer.close();
+            sessions.remove(streamId, session);
+            throw e;
+        }
+        return session;
+    }
+
+    public boolean stop(Long streamId) {
+        StreamSession session = sessions.remove(streamId);
+        if (session == null) {
+            return false;
+        }
+        session.stop();
+        return true;
+    }
+
+    public Optional<StreamSession> getSession(Long streamId) {
+        return Optional.ofNullable(sessions.get(streamId));
+    }
+
+    public List<StreamSession> getSessions() {
+        return List.copyOf(sessions.values());
+    }
+
+    @PreDestroy
+    public void stopAll() {
+        sessions.keySet().forEach(this::stop);
+    }
+}
@@ -0,0 +1,198 @@
+package org.psd.parkingspacedetector.service.svm;
+
+import org.psd.parkingspacedetector.service.feature.FeatureExtractor;
+import weka.classifiers.functions.SMO;
+import weka.classifiers.functions.supportVector.Kernel;
+import weka.classifiers.functions.supportVector.PolyKernel;
+import weka.classifiers.functions.supportVector.RBFKernel;
+import weka.classifiers.functions.supportVector.SMOset;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.filters.Filter;
+import weka.filters.unsupervised.attribute.Normalize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Weka-free binary form of a trained two-class SMO, written next to the
+ * serialized model at training time and evaluated by {@link MappedSvmPredictor}.
+ * <p>
+ * Little-endian layout: a {@value #HEADER_SIZE}-byte header of six ints
+ * (magic, version, feature count, kernel, normalized flag, vector count) and
+ * five doubles (bias, kernel exponent or gamma, lower-order flag, scale,
+ * translation), then the per-feature normalization minimums and maximums.
+ * Linear models follow with one weight per feature; kernel models with
+ * one record per support vector of its coefficient (class times alpha), its
+ * squared norm and its normalized features.
+ */
+public final class CompactSvmModel {
+
+    static final int MAGIC = 0x5053444D;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 64;
+
+    static final int KERNEL_LINEAR = 0;
+    static final int KERNEL_POLYNOMIAL = 1;
+    static final int KERNEL_RBF = 2;
+
+    private static final String MODEL_EXTENSION = ".model";
+    private static final String COMPACT_EXTENSION = ".psdm";
+
+    private CompactSvmModel() {
+    }
+
+    public static String pathFor(String modelPath) {
+        String basePath = modelPath.endsWith(MODEL_EXTENSION)
+                ? modelPath.substring(0, modelPath.length() - MODEL_EXTENSION.length())
+                : modelPath;
+        return basePath + COMPACT_EXTENSION;
+    }
+
+    /**
+     * Writes the compact form of {@code model}, or returns {@code false} when
+     * the model uses something the format cannot express (more than two
+     * classes, calibration, nominal attributes, standardization or a kernel
+     * other than polynomial and RBF).
+     */
+    public static boolean write(SMO model, Path path) {
+        ByteBuffer buffer;
+        try {
+            buffer = encode(model);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            throw new RuntimeException("Failed to read the trained model.", e);
+        }
+        if (buffer == null) {
+            return false;
+        }
+
+        Path temporaryPath = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporaryPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write compact model.", e);
+        }
+        try {
+            Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write compact model.", e);
+        }
+        return true;
+    }
+
+    private static ByteBuffer encode(SMO model) throws ReflectiveOperationException {
+        if (model.numClassAttributeValues() != 2
+                || SmoInternals.field(model, SMO.class, "m_fitCalibratorModels", Boolean.class)
+                || SmoInternals.field(model, SMO.class, "m_NominalToBinary", Object.class) != null) {
+            return null;
+        }
+        Filter filter = SmoInternals.field(model, SMO.class, "m_Filter", Filter.class);
+        if (filter != null && !(filter instanceof Normalize)) {
+            return null;
+        }
+        int classIndex = SmoInternals.field(model, SMO.class, "m_classIndex", Integer.class);
+        if (classIndex != FeatureExtractor.FEATURE_COUNT) {
+            return null;
+        }
+        Object binaryMachine = SmoInternals.field(model, SMO.class, "m_classifiers", Object[][].class)[0][1];
+        Class<?> machineClass = binaryMachine.getClass();
+
+        int kernelType;
+        double kernelParameter = 0;
+        boolean lowerOrder = false;
+        double[] linearWeights = null;
+        List<double[]> supportVectors = new ArrayList<>();
+
+        double[] sparseWeights = model.sparseWeights()[0][1];
+        if (sparseWeights != null) {
+            kernelType = KERNEL_LINEAR;
+            linearWeights = new double[FeatureExtractor.FEATURE_COUNT];
+            int[] sparseIndices = model.sparseIndices()[0][1];
+            for (int k = 0; k < sparseIndices.length; k++) {
+                if (sparseIndices[k] != classIndex) {
+                    linearWeights[sparseIndices[k]] = sparseWeights[k];
+                }
+            }
+        } else {
+            Kernel kernel = SmoInternals.field(binaryMachine, machineClass, "m_kernel", Kernel.class);
+            double[] kernelPrecalc = null;
+            if (kernel != null && kernel.getClass() == PolyKernel.class) {
+                kernelType = KERNEL_POLYNOMIAL;
+                kernelParameter = ((PolyKernel) kernel).getExponent();
+                lowerOrder = ((PolyKernel) kernel).getUseLowerOrder();
+            } else if (kernel != null && kernel.getClass() == RBFKernel.class) {
+                kernelType = KERNEL_RBF;
+                kernelParameter = ((RBFKernel) kernel).getGamma();
+                kernelPrecalc = SmoInternals.field(kernel, RBFKernel.class, "m_kernelPrecalc", double[].class);
+            } else {
+                return null;
+            }
+
+            double[] alpha = SmoInternals.field(binaryMachine, machineClass, "m_alpha", double[].class);
+            double[] classes = SmoInternals.field(binaryMachine, machineClass, "m_class", double[].class);
+            SMOset supportVectorSet = SmoInternals.field(binaryMachine, machineClass, "m_supportVectors", SMOset.class);
+            Instances data = SmoInternals.field(binaryMachine, machineClass, "m_data", Instances.class);
+            if (alpha == null || supportVectorSet == null) {
+                return null;
+            }
+            for (int i = supportVectorSet.getNext(-1); i != -1; i = supportVectorSet.getNext(i)) {
+                Instance instance = data.instance(i);
+                double[] record = new double[FeatureExtractor.FEATURE_COUNT + 2];
+                record[0] = classes[i] * alpha[i];
+                record[1] = kernelPrecalc != null ? kernelPrecalc[i] : 0;
+                for (int f = 0; f < FeatureExtractor.FEATURE_COUNT; f++) {
+                    record[f + 2] = instance.value(f);
+                }
+                supportVectors.add(record);
+            }
+        }
+
+        int featureCount = FeatureExtractor.FEATURE_COUNT;
+        int vectorCount = linearWeights != null ? 1 : supportVectors.size();
+        int recordSize = linearWeights != null ? featureCount : featureCount + 2;
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + (2 * featureCount + vectorCount * recordSize) * Double.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        Normalize normalize = (Normalize) filter;
+        buffer.putInt(MAGIC)
+                .putInt(VERSION)
+                .putInt(featureCount)
+                .putInt(kernelType)
+                .putInt(normalize != null ? 1 : 0)
+                .putInt(vectorCount)
+                .putDouble(model.bias()[0][1])
+                .putDouble(kernelParameter)
+                .putDouble(lowerOrder ? 1 : 0)
+                .putDouble(normalize != null ? normalize.getScale() : 1)
+                .putDouble(normalize != null ? normalize.getTranslation() : 0);
+        for (int f = 0; f < featureCount; f++) {
+            buffer.putDouble(normalize != null ? normalize.getMinArray()[f] : 0);
+        }
+        for (int f = 0; f < featureCount; f++) {
+            buffer.putDouble(normalize != null ? normalize.getMaxArray()[f] : 0);
+        }
+        if (linearWeights != null) {
+            for (double weight : linearWeights) {
+                buffer.putDouble(weight);
+            }
+        } else {
+            for (double[] record : supportVectors) {
+                for (double value : record) {
+                    buffer.putDouble(value);
+                }
+            }
+        }
+        return buffer.flip();
+    }
+}
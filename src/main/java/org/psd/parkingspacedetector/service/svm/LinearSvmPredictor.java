@@ -0,0 +1,119 @@
+package org.psd.parkingspacedetector.service.svm;
+
+import lombok.extern.slf4j.Slf4j;
+import org.psd.parkingspacedetector.service.FramePredictions;
+import org.psd.parkingspacedetector.service.feature.FeatureExtractor;
+import weka.classifiers.functions.SMO;
+import weka.filters.Filter;
+import weka.filters.unsupervised.attribute.Normalize;
+
+import java.util.Arrays;
+
+/**
+ * Decision function of a two-class SMO with a linear kernel, evaluated
+ * from the model's weights without building Weka instances. Features are
+ * normalized and summed in the order Weka uses, so predictions match
+ * {@link SMO#distributionForInstance} exactly. The model is only read, so
+ * one predictor can serve any number of threads.
+ * <p>
+ * Weka only reports one-hot distributions for uncalibrated models, so the
+ * confidence here is the logistic of the distance from the decision
+ * boundary, 0.5 on the boundary and approaching 1 away from it.
+ */
+@Slf4j
+public final class LinearSvmPredictor implements SvmPredictor {
+
+    private final int[] indices;
+    private final double[] weights;
+    private final double bias;
+    private final double[] minimums;
+    private final double[] maximums;
+    private final double scale;
+    private final double translation;
+
+    private LinearSvmPredictor(int[] indices, double[] weights, double bias, Normalize normalize) {
+        this.indices = indices;
+        this.weights = weights;
+        this.bias = bias;
+        this.minimums = normalize != null ? normalize.getMinArray() : null;
+        this.maximums = normalize != null ? normalize.getMaxArray() : null;
+        this.scale = normalize != null ? normalize.getScale() : 1.0;
+        this.translation = normalize != null ? normalize.getTranslation() : 0.0;
+    }
+
+    /**
+     * Returns {@code null} unless the model is a two-class linear SMO without
+     * calibration models whose features are left as is or normalized.
+     */
+    static LinearSvmPredictor from(SMO model) {
+        try {
+            if (model.numClassAttributeValues() != 2
+                    || readField(model, "m_fitCalibratorModels", Boolean.class)
+                    || readField(model, "m_NominalToBinary", Object.class) != null) {
+                return null;
+            }
+            Filter filter = readField(model, "m_Filter", Filter.class);
+            if (filter != null && !(filter instanceof Normalize)) {
+                return null;
+            }
+            double[] sparseWeights = model.sparseWeights()[0][1];
+            int[] sparseIndices = model.sparseIndices()[0][1];
+            if (sparseWeights == null || sparseIndices == null) {
+                return null;
+            }
+            // Weka skips the class attribute when it sums the weights.
+            int classIndex = readField(model, "m_classIndex", Integer.class);
+            int[] indices = new int[sparseIndices.length];
+            double[] weights = new double[sparseWeights.length];
+            int count = 0;
+            for (int k = 0; k < sparseIndices.length; k++) {
+                if (sparseIndices[k] == classIndex) {
+                    continue;
+                }
+                if (sparseIndices[k] >= FeatureExtractor.FEATURE_COUNT) {
+                    return null;
+                }
+                indices[count] = sparseIndices[k];
+                weights[count++] = sparseWeights[k];
+            }
+            return new LinearSvmPredictor(Arrays.copyOf(indices, count), Arrays.copyOf(weights, count), model.bias()[0][1],
+                    (Normalize) filter);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.debug("Model cannot be evaluated from its weights: {}", e.toString());
+            return null;
+        }
+    }
+
+    @Override
+    public FramePredictions predict(double[] features, int count) {
+        double[] predictions = new double[count];
+        double[] confidences = new double[count];
+        for (int row = 0; row < count; row++) {
+            int offset = row * FeatureExtractor.FEATURE_COUNT;
+            double output = 0;
+            for (int k = 0; k < indices.length; k++) {
+                output += normalize(indices[k], features[offset + indices[k]]) * weights[k];
+            }
+            output -= bias;
+            predictions[row] = output > 0 ? 1 : 0;
+            confidences[row] = 1.0 / (1.0 + Math.exp(-Math.abs(output)));
+        }
+        return new FramePredictions(predictions, confidences);
+    }
+
+    private double normalize(int index, double value) {
+        if (minimums == null) {
+            return value;
+        }
+        double minimum = minimums[index];
+        double maximum = maximums[index];
+        if (Double.isNaN(minimum) || maximum == minimum) {
+            return 0;
+        }
+        return (value - minimum) / (maximum - minimum) * scale + translation;
+    }
+
+    private static <T> T readField(SMO model, String name, Class<T> type) throws ReflectiveOperationException {
+        return SmoInternals.field(model, SMO.class, name, type);
+    }
+}
@@ -0,0 +1,148 @@
+package org.psd.parkingspacedetector.service.svm;
+
+import org.psd.parkingspacedetector.service.FramePredictions;
+import org.psd.parkingspacedetector.service.feature.FeatureExtractor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.psd.parkingspacedetector.service.svm.CompactSvmModel.*;
+
+/**
+ * Evaluates a {@link CompactSvmModel} file straight from a read-only memory
+ * mapping. Features are normalized and every sum is accumulated in the
+ * order Weka uses, so predictions match the SMO the file was exported from.
+ * Only absolute reads touch the mapping, so one instance serves any number
+ * of threads. Confidences follow {@link LinearSvmPredictor}.
+ * <p>
+ * The mapping stays valid until the predictor is garbage collected, and on
+ * Windows the file cannot be deleted or replaced until then, so every model
+ * is written under its own file name rather than over its predecessor.
+ */
+public final class MappedSvmPredictor implements SvmPredictor {
+
+    private static final int MINIMUMS_OFFSET = HEADER_SIZE;
+
+    private final ByteBuffer model;
+    private final int featureCount;
+    private final int kernelType;
+    private final boolean normalized;
+    private final int vectorCount;
+    private final double bias;
+    private final double kernelParameter;
+    private final boolean lowerOrder;
+    private final double scale;
+    private final double translation;
+    private final int maximumsOffset;
+    private final int vectorsOffset;
+
+    private MappedSvmPredictor(ByteBuffer model) {
+        this.model = model;
+        if (model.capacity() < HEADER_SIZE || model.getInt(0) != MAGIC) {
+            throw new RuntimeException("Not a compact parking slot model.");
+        }
+        if (model.getInt(4) != VERSION) {
+            throw new RuntimeException("Unsupported compact model version " + model.getInt(4) + ".");
+        }
+        this.featureCount = model.getInt(8);
+        this.kernelType = model.getInt(12);
+        this.normalized = model.getInt(16) == 1;
+        this.vectorCount = model.getInt(20);
+        this.bias = model.getDouble(24);
+        this.kernelParameter = model.getDouble(32);
+        this.lowerOrder = model.getDouble(40) == 1;
+        this.scale = model.getDouble(48);
+        this.translation = model.getDouble(56);
+        this.maximumsOffset = MINIMUMS_OFFSET + featureCount * Double.BYTES;
+        this.vectorsOffset = maximumsOffset + featureCount * Double.BYTES;
+
+        int recordSize = kernelType == KERNEL_LINEAR ? featureCount : featureCount + 2;
+        if (featureCount != FeatureExtractor.FEATURE_COUNT || kernelType < KERNEL_LINEAR || kernelType > KERNEL_RBF
+                || model.capacity() != vectorsOffset + (long) vectorCount * recordSize * Double.BYTES) {
+            throw new RuntimeException("Corrupt compact parking slot model.");
+        }
+    }
+
+    public static MappedSvmPredictor open(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+            return new MappedSvmPredictor(mapping);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to open compact model.", e);
+        }
+    }
+
+    @Override
+    public FramePredictions predict(double[] features, int count) {
+        double[] predictions = new double[count];
+        double[] confidences = new double[count];
+        double[] values = new double[featureCount];
+        for (int row = 0; row < count; row++) {
+            for (int f = 0; f < featureCount; f++) {
+                values[f] = normalize(f, features[row * FeatureExtractor.FEATURE_COUNT + f]);
+            }
+            double output = (kernelType == KERNEL_LINEAR ? linearOutput(values) : kernelOutput(values)) - bias;
+            predictions[row] = output > 0 ? 1 : 0;
+            confidences[row] = 1.0 / (1.0 + Math.exp(-Math.abs(output)));
+        }
+        return new FramePredictions(predictions, confidences);
+    }
+
+    private double linearOutput(double[] values) {
+        double output = 0;
+        for (int f = 0; f < featureCount; f++) {
+            output += values[f] * model.getDouble(vectorsOffset + f * Double.BYTES);
+        }
+        return output;
+    }
+
+    private double kernelOutput(double[] values) {
+        double selfProduct = kernelType == KERNEL_RBF ? dotProduct(values, -1) : 0;
+        int recordBytes = (featureCount + 2) * Double.BYTES;
+        double output = 0;
+        for (int v = 0; v < vectorCount; v++) {
+            int record = vectorsOffset + v * recordBytes;
+            double coefficient = model.getDouble(record);
+            double product = dotProduct(values, record + 2 * Double.BYTES);
+            double kernel;
+            if (kernelType == KERNEL_RBF) {
+                kernel = Math.exp(-kernelParameter * (selfProduct - 2.0 * product + model.getDouble(record + Double.BYTES)));
+            } else {
+                kernel = lowerOrder ? product + 1.0 : product;
+                if (kernelParameter != 1.0) {
+                    kernel = Math.pow(kernel, kernelParameter);
+                }
+            }
+            output += coefficient * kernel;
+        }
+        return output;
+    }
+
+    /**
+     * Dot product of {@code values} with the vector at {@code offset}, or
+     * with itself for a negative offset.
+     */
+    private double dotProduct(double[] values, int offset) {
+        double product = 0;
+        for (int f = 0; f < featureCount; f++) {
+            product += values[f] * (offset < 0 ? values[f] : model.getDouble(offset + f * Double.BYTES));
+        }
+        return product;
+    }
+
+    private double normalize(int feature, double value) {
+        if (!normalized) {
+            return value;
+        }
+        double minimum = model.getDouble(MINIMUMS_OFFSET + feature * Double.BYTES);
+        double maximum = model.getDouble(maximumsOffset + feature * Double.BYTES);
+        if (Double.isNaN(minimum) || maximum == minimum) {
+            return 0;
+        }
+        return (value - minimum) / (maximum - minimum) * scale + translation;
+    }
+}
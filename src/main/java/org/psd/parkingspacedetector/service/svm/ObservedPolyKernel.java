@@ -0,0 +1,64 @@
+package org.psd.parkingspacedetector.service.svm;
+
+import org.psd.parkingspacedetector.service.TrainingProgressListener;
+import weka.classifiers.functions.SMO;
+import weka.classifiers.functions.supportVector.PolyKernel;
+import weka.core.Instance;
+import weka.core.Instances;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Default SMO kernel that reports its evaluations to the listener of the
+ * training thread and aborts the optimisation once the training is cancelled.
+ * SMO has no progress hooks, and kernel evaluations grow with its iterations.
+ * SMO copies kernels by serialization, so the listener is looked up per thread
+ * instead of being a field.
+ */
+public class ObservedPolyKernel extends PolyKernel {
+
+    private static final long REPORT_INTERVAL = 1 << 12;
+    private static final ThreadLocal<Observation> OBSERVATION = new ThreadLocal<>();
+
+    /**
+     * Builds the model with this kernel, then restores a plain {@link PolyKernel}
+     * so the stored model does not depend on this class.
+     */
+    public static void buildClassifier(SMO model, Instances data, TrainingProgressListener listener) throws Exception {
+        Observation observation = new Observation(listener);
+        model.setKernel(new ObservedPolyKernel());
+        OBSERVATION.set(observation);
+        try {
+            model.buildClassifier(data);
+        } finally {
+            OBSERVATION.remove();
+            model.setKernel(new PolyKernel());
+        }
+        listener.onKernelEvaluations(observation.evaluations);
+    }
+
+    @Override
+    public double eval(int id1, int id2, Instance inst1) throws Exception {
+        Observation observation = OBSERVATION.get();
+        if (observation != null && ++observation.evaluations % REPORT_INTERVAL == 0) {
+            observation.report();
+        }
+        return super.eval(id1, id2, inst1);
+    }
+
+    private static final class Observation {
+        private final TrainingProgressListener listener;
+        private long evaluations;
+
+        private Observation(TrainingProgressListener listener) {
+            this.listener = listener;
+        }
+
+        private void report() {
+            listener.onKernelEvaluations(evaluations);
+            if (listener.isCancelled()) {
+                throw new CancellationException("Training cancelled.");
+            }
+        }
+    }
+}
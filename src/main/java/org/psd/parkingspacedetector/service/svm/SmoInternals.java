@@ -0,0 +1,19 @@
+package org.psd.parkingspacedetector.service.svm;
+
+import java.lang.reflect.Field;
+
+/**
+ * Read access to the protected state of a trained Weka SMO, which has no
+ * public accessors for its filters, binary machines or kernels.
+ */
+final class SmoInternals {
+
+    private SmoInternals() {
+    }
+
+    static <T> T field(Object target, Class<?> owner, String name, Class<T> type) throws ReflectiveOperationException {
+        Field field = owner.getDeclaredField(name);
+        field.setAccessible(true);
+        return type.cast(field.get(target));
+    }
+}
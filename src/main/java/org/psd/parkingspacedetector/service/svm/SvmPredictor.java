@@ -0,0 +1,23 @@
+package org.psd.parkingspacedetector.service.svm;
+
+import org.psd.parkingspacedetector.service.FramePredictions;
+import weka.classifiers.functions.SMO;
+
+/**
+ * Classifies a batch of slots from a flat feature matrix holding
+ * {@link org.psd.parkingspacedetector.service.feature.FeatureExtractor#FEATURE_COUNT}
+ * features per row.
+ */
+public interface SvmPredictor {
+
+    FramePredictions predict(double[] features, int count);
+
+    /**
+     * Evaluates linear models straight from their weights and falls back to
+     * Weka for every other model.
+     */
+    static SvmPredictor of(SMO model) {
+        SvmPredictor linearPredictor = LinearSvmPredictor.from(model);
+        return linearPredictor != null ? linearPredictor : new WekaSvmPredictor(model);
+    }
+}
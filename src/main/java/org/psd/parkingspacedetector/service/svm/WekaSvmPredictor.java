@@ -0,0 +1,55 @@
+package org.psd.parkingspacedetector.service.svm;
+
+import org.psd.parkingspacedetector.service.FramePredictions;
+import org.psd.parkingspacedetector.service.ImageProcessingService;
+import org.psd.parkingspacedetector.service.feature.FeatureExtractor;
+import weka.classifiers.functions.SMO;
+import weka.core.DenseInstance;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.Utils;
+
+import java.util.ArrayList;
+
+/**
+ * Runs every row through {@link SMO#distributionForInstance}, against one
+ * dataset header built per model. The confidence is the probability of the
+ * predicted class, which is 1 unless the model was built with calibration.
+ */
+public class WekaSvmPredictor implements SvmPredictor {
+
+    private final SMO model;
+    private final Instances header;
+
+    public WekaSvmPredictor(SMO model) {
+        this.model = model;
+        this.header = new Instances("ParkingSlotTest", new ArrayList<>(ImageProcessingService.createAttributes()), 0);
+        this.header.setClassIndex(header.numAttributes() - 1);
+    }
+
+    @Override
+    public FramePredictions predict(double[] features, int count) {
+        double[] predictions = new double[count];
+        double[] confidences = new double[count];
+        int numAttributes = header.numAttributes();
+        // SMO pushes every instance through its stateful filters, and cached models are shared.
+        synchronized (model) {
+            for (int i = 0; i < count; i++) {
+                double[] values = new double[numAttributes];
+                System.arraycopy(features, i * FeatureExtractor.FEATURE_COUNT, values, 0, FeatureExtractor.FEATURE_COUNT);
+                values[numAttributes - 1] = Utils.missingValue();
+                Instance instance = new DenseInstance(1.0, values);
+                instance.setDataset(header);
+                try {
+                    double[] distribution = model.distributionForInstance(instance);
+                    int predictedClass = Utils.maxIndex(distribution);
+                    predictions[i] = predictedClass;
+                    confidences[i] = distribution[predictedClass];
+                } catch (Exception e) {
+                    throw new RuntimeException("Failed to predict using the model.", e);
+                }
+            }
+        }
+        return new FramePredictions(predictions, confidences);
+    }
+}
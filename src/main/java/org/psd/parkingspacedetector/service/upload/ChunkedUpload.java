@@ -0,0 +1,108 @@
+package org.psd.parkingspacedetector.service.upload;
+
+import lombok.Getter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * An upload being received into a part file. Chunks must arrive in order and
+ * are copied from the request channel to the file channel through one
+ * buffer, feeding the SHA-256 digest on the way, so the content hash is known
+ * as soon as the last byte is written. A chunk that is cut short keeps the
+ * bytes written so far and the client resumes from {@link #getReceived()}.
+ * {@link #isIdleSince} tells abandoned uploads apart from ones still receiving.
+ * Once finished the upload takes no more chunks and keeps its hash, so
+ * completion can be retried.
+ */
+@Getter
+public class ChunkedUpload {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final String id;
+    private final String fileName;
+    private final Long refId;
+    private final Long size;
+    private final Path partFile;
+    private final MessageDigest digest;
+    private volatile long received;
+    private volatile long lastActivity = System.currentTimeMillis();
+    private volatile boolean appending;
+    private String contentHash;
+
+    public ChunkedUpload(String id, String fileName, Long refId, Long size, Path partFile) {
+        this.id = id;
+        this.fileName = fileName;
+        this.refId = refId;
+        this.size = size;
+        this.partFile = partFile;
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 is not available.", e);
+        }
+    }
+
+    /**
+     * Appends the source at {@code offset}. Returns {@code false} without
+     * reading anything when the offset is not where the upload stands.
+     */
+    public synchronized boolean append(long offset, ReadableByteChannel source) throws IOException {
+        lastActivity = System.currentTimeMillis();
+        if (contentHash != null) {
+            throw new RuntimeException("Upload is already complete.");
+        }
+        if (offset != received) {
+            return false;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        appending = true;
+        try (FileChannel file = FileChannel.open(partFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            file.position(received);
+            while (source.read(buffer) != -1) {
+                buffer.flip();
+                int length = buffer.remaining();
+                if (size != null && received + length > size) {
+                    throw new RuntimeException("Upload is larger than its declared size of " + size + " bytes.");
+                }
+                while (buffer.hasRemaining()) {
+                    file.write(buffer);
+                }
+                buffer.rewind();
+                digest.update(buffer);
+                received += length;
+                buffer.clear();
+            }
+        } finally {
+            appending = false;
+            lastActivity = System.currentTimeMillis();
+        }
+        return true;
+    }
+
+    public boolean isIdleSince(long cutoffMillis) {
+        return !appending && lastActivity < cutoffMillis;
+    }
+
+    /**
+     * Returns the hex SHA-256 of the content once every declared byte arrived.
+     */
+    public synchronized String finish() {
+        if (contentHash != null) {
+            return contentHash;
+        }
+        if (size != null && received != size) {
+            throw new RuntimeException("Upload is incomplete, received " + received + " of " + size + " bytes.");
+        }
+        contentHash = HexFormat.of().formatHex(digest.digest());
+        return contentHash;
+    }
+}
@@ -0,0 +1,219 @@
+package org.psd.parkingspacedetector.service.upload;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.psd.parkingspacedetector.configuration.MediaConfig;
+import org.psd.parkingspacedetector.dto.response.UploadSessionDTO;
+import org.psd.parkingspacedetector.entity.Media;
+import org.psd.parkingspacedetector.service.MediaService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Streams uploads straight into the upload directory. Uploads land in a part
+ * file under {@code .uploads} and are moved next to the other media when
+ * complete, unless media with the same content and ref id already exists, in
+ * which case the existing media is returned and the part file dropped.
+ * Completions of the same content and ref id are serialized, and an upload
+ * stays in progress until its media is saved, so a failed completion can be
+ * retried. Uploads idle for longer than {@code media.upload-expiry-minutes}
+ * are dropped by a periodic sweep, which also deletes part files left behind
+ * by a restart.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UploadService {
+
+    private static final String PART_DIRECTORY = ".uploads";
+    private static final String PART_EXTENSION = ".part";
+    private static final long SWEEP_INTERVAL_MINUTES = 10;
+    private static final int COMPLETION_LOCKS = 64;
+
+    public record UploadResult(Media media, boolean duplicate) {
+    }
+
+    private final MediaConfig mediaConfig;
+    private final MediaService mediaService;
+
+    private final Map<String, ChunkedUpload> uploads = new ConcurrentHashMap<>();
+    private final Object[] completionLocks = Stream.generate(Object::new).limit(COMPLETION_LOCKS).toArray();
+    private ScheduledExecutorService sweeper;
+
+    @PostConstruct
+    public void startSweeper() {
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "upload-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(this::sweep, 0, SWEEP_INTERVAL_MINUTES, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void stopSweeper() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+    }
+
+    public ChunkedUpload begin(String fileName, Long refId, Long size) throws IOException {
+        String name = sanitize(fileName);
+        Path partDirectory = Files.createDirectories(Path.of(mediaConfig.getUploadBaseDir(), PART_DIRECTORY));
+        String id = UUID.randomUUID().toString();
+        ChunkedUpload upload = new ChunkedUpload(id, name, refId, size, partDirectory.resolve(id + PART_EXTENSION));
+        uploads.put(id, upload);
+        return upload;
+    }
+
+    public Optional<ChunkedUpload> getUpload(String id) {
+        return Optional.ofNullable(uploads.get(id));
+    }
+
+    public boolean append(ChunkedUpload upload, long offset, InputStream content) throws IOException {
+        return upload.append(offset, Channels.newChannel(content));
+    }
+
+    public UploadResult complete(ChunkedUpload upload) throws IOException {
+        if (uploads.get(upload.getId()) != upload) {
+            throw new RuntimeException("Upload is not in progress.");
+        }
+        String contentHash = upload.finish();
+
+        synchronized (completionLock(contentHash, upload.getRefId())) {
+            if (uploads.get(upload.getId()) != upload) {
+                throw new RuntimeException("Upload is not in progress.");
+            }
+            Optional<Media> existing = mediaService.findUpload(contentHash, upload.getRefId());
+            if (existing.isPresent()) {
+                uploads.remove(upload.getId(), upload);
+                Files.deleteIfExists(upload.getPartFile());
+                log.info("Upload {} of {} is a duplicate of media {}", upload.getId(), upload.getFileName(), existing.get().getId());
+                return new UploadResult(existing.get(), true);
+            }
+
+            Path destination = Path.of(mediaConfig.getUploadBaseDir(), upload.getFileName());
+            if (Files.exists(destination)) {
+                destination = destination.resolveSibling(contentHash.substring(0, 12) + "_" + upload.getFileName());
+            }
+            if (Files.notExists(upload.getPartFile())) {
+                Files.createFile(upload.getPartFile());
+            }
+            Files.move(upload.getPartFile(), destination, StandardCopyOption.ATOMIC_MOVE);
+            Media media;
+            try {
+                media = mediaService.saveUpload(destination.toFile(), upload.getRefId(), contentHash);
+            } catch (RuntimeException e) {
+                restorePartFile(upload, destination, e);
+                throw e;
+            }
+            uploads.remove(upload.getId(), upload);
+            return new UploadResult(media, false);
+        }
+    }
+
+    public UploadResult store(String fileName, Long refId, InputStream content) throws IOException {
+        ChunkedUpload upload = begin(fileName, refId, null);
+        try {
+            append(upload, 0, content);
+            return complete(upload);
+        } catch (IOException | RuntimeException e) {
+            abort(upload);
+            throw e;
+        }
+    }
+
+    public void abort(ChunkedUpload upload) throws IOException {
+        uploads.remove(upload.getId());
+        Files.deleteIfExists(upload.getPartFile());
+    }
+
+    /**
+     * Drops uploads with no chunk since {@code cutoffMillis} and deletes part
+     * files older than that which belong to no upload in progress.
+     */
+    void expireIdleUploads(long cutoffMillis) throws IOException {
+        for (ChunkedUpload upload : uploads.values()) {
+            if (upload.isIdleSince(cutoffMillis) && uploads.remove(upload.getId(), upload)) {
+                Files.deleteIfExists(upload.getPartFile());
+                log.info("Upload {} of {} expired after {} of {} bytes", upload.getId(), upload.getFileName(), upload.getReceived(),
+                        upload.getSize());
+            }
+        }
+
+        Path partDirectory = Path.of(mediaConfig.getUploadBaseDir(), PART_DIRECTORY);
+        if (Files.notExists(partDirectory)) {
+            return;
+        }
+        Set<Path> activePartFiles = uploads.values().stream().map(ChunkedUpload::getPartFile).collect(Collectors.toSet());
+        try (Stream<Path> partFiles = Files.list(partDirectory)) {
+            for (Path partFile : partFiles.filter(path -> path.toString().endsWith(PART_EXTENSION)).toList()) {
+                if (!activePartFiles.contains(partFile) && Files.getLastModifiedTime(partFile).toMillis() < cutoffMillis) {
+                    Files.deleteIfExists(partFile);
+                    log.info("Deleted orphaned upload part {}", partFile.getFileName());
+                }
+            }
+        }
+    }
+
+    private void sweep() {
+        try {
+            expireIdleUploads(System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(mediaConfig.getUploadExpiryMinutes()));
+        } catch (Exception e) {
+            log.error("Failed to expire idle uploads", e);
+        }
+    }
+
+    public UploadSessionDTO toDto(ChunkedUpload upload) {
+        return new UploadSessionDTO(upload.getId(), upload.getFileName(), upload.getRefId(), upload.getSize(), upload.getReceived());
+    }
+
+    /**
+     * Moves a file whose media could not be saved back into the part file so
+     * completion can be retried, or deletes it and drops the upload.
+     */
+    private void restorePartFile(ChunkedUpload upload, Path destination, RuntimeException failure) {
+        try {
+            Files.move(destination, upload.getPartFile(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException moveFailure) {
+            failure.addSuppressed(moveFailure);
+            uploads.remove(upload.getId(), upload);
+            try {
+                Files.deleteIfExists(destination);
+            } catch (IOException deleteFailure) {
+                failure.addSuppressed(deleteFailure);
+            }
+        }
+    }
+
+    private Object completionLock(String contentHash, Long refId) {
+        return completionLocks[Math.floorMod(Objects.hash(contentHash, refId), COMPLETION_LOCKS)];
+    }
+
+    private static String sanitize(String fileName) {
+        Path name = fileName == null ? null : Path.of(fileName).getFileName();
+        if (name == null || name.toString().isBlank() || name.toString().startsWith(".")) {
+            throw new RuntimeException("Invalid file name.");
+        }
+        return name.toString();
+    }
+}
@@ -0,0 +1,76 @@
+package org.psd.parkingspacedetector.repository;
+
+import org.junit.jupiter.api.Test;
+import org.psd.parkingspacedetector.entity.OccupancyTransition;
+import org.psd.parkingspacedetector.service.stream.OccupancyEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:transitions;MODE=MSSQLServer;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.hbm2ddl.create_namespaces=true",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.show_sql=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(OccupancyTransitionBatchRepository.class)
+class OccupancyTransitionBatchRepositoryTest {
+
+    @Autowired
+    private OccupancyTransitionBatchRepository occupancyTransitionBatchRepository;
+
+    @Autowired
+    private OccupancyTransitionRepository occupancyTransitionRepository;
+
+    @Test
+    void insertsTransitionsInMappedColumns() {
+        occupancyTransitionBatchRepository.insertAll(List.of(
+                new OccupancyEvent(1L, 10L, 0, true, 0.9, 1_000L),
+                new OccupancyEvent(1L, 10L, 0, false, 0.8, 2_000L)));
+
+        List<OccupancyTransition> transitions = occupancyTransitionRepository.findInRange(1L, 0, 0L, 3_000L);
+        assertEquals(2, transitions.size());
+        assertEquals(true, transitions.get(0).getOccupied());
+        assertEquals(2_000L, transitions.get(1).getObservedAt());
+    }
+
+    @Test
+    void deleteSourceOnlyRemovesThatSource() {
+        occupancyTransitionBatchRepository.insertAll(List.of(
+                new OccupancyEvent(1L, 10L, 0, true, 0.9, 1_000L),
+                new OccupancyEvent(1L, 11L, 0, true, 0.9, 1_000L),
+                new OccupancyEvent(2L, 10L, 0, true, 0.9, 1_000L)));
+
+        assertEquals(1, occupancyTransitionBatchRepository.deleteSource(1L, 10L));
+        assertEquals(2, occupancyTransitionRepository.count());
+    }
+
+    @Test
+    void endMarkersCloseEverySlotOfTheSource() {
+        occupancyTransitionBatchRepository.insertAll(List.of(
+                new OccupancyEvent(1L, 10L, 0, true, 0.9, 1_000L),
+                new OccupancyEvent(1L, 10L, 0, false, 0.9, 2_000L),
+                new OccupancyEvent(1L, 10L, 1, true, 0.9, 1_000L),
+                new OccupancyEvent(1L, 11L, 0, true, 0.9, 1_000L)));
+
+        assertEquals(2, occupancyTransitionBatchRepository.insertEndMarkers(1L, 10L, 5_000L));
+
+        List<OccupancyTransition> transitions = occupancyTransitionRepository.findInRange(1L, null, 0L, 6_000L);
+        List<OccupancyTransition> markers = transitions.stream()
+                .filter(transition -> transition.getOccupied() == null)
+                .toList();
+        assertEquals(2, markers.size());
+        assertEquals(List.of(10L, 10L), markers.stream().map(OccupancyTransition::getSourceId).toList());
+        assertEquals(List.of(5_000L, 5_000L), markers.stream().map(OccupancyTransition::getObservedAt).toList());
+    }
+}
@@ -0,0 +1,155 @@
+package org.psd.parkingspacedetector.repository;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.psd.parkingspacedetector.entity.CoordinatesInfo;
+import org.psd.parkingspacedetector.entity.Media;
+import org.psd.parkingspacedetector.entity.ParkingSlotInfo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:batch;MODE=MSSQLServer;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.hbm2ddl.create_namespaces=true",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.show_sql=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(ParkingSlotBatchRepository.class)
+class ParkingSlotBatchRepositoryTest {
+
+    private static final int SLOTS = 1000;
+    private static final int POINTS = 4;
+
+    @Autowired
+    private ParkingSlotBatchRepository parkingSlotBatchRepository;
+
+    @Autowired
+    private ParkingSlotInfoRepository parkingSlotInfoRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Media media;
+
+    @BeforeEach
+    void persistMedia() {
+        media = Media.builder()
+                .name("layout.jpg")
+                .path("layout.jpg")
+                .originalPath("layout.jpg")
+                .createdAt(ZonedDateTime.now())
+                .build();
+        entityManager.persist(media);
+        entityManager.flush();
+    }
+
+    @Test
+    void insertsSlotsWithTheirCoordinates() {
+        List<ParkingSlotInfo> slots = slots(0);
+        parkingSlotBatchRepository.insertTrainSlots(media.getId(), slots);
+
+        List<SlotCoordinateRow> rows = parkingSlotInfoRepository.findLayoutRowsByMediaId(media.getId());
+        assertEquals(SLOTS * POINTS, rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            SlotCoordinateRow row = rows.get(i);
+            int slot = i / POINTS;
+            assertEquals(slots.get(slot).getId(), row.slotId());
+            assertEquals(slot, row.slotIndex());
+            assertEquals(slot % 2 == 0, row.isEmpty());
+            assertEquals(i % POINTS, row.pointOrder());
+            assertEquals(slot * 10.0 + i % POINTS, row.realX());
+        }
+    }
+
+    @Test
+    void slotIdsAreMatchedBySlotIndex() {
+        List<ParkingSlotInfo> slots = slots(0);
+        Collections.reverse(slots);
+        parkingSlotBatchRepository.insertTrainSlots(media.getId(), slots);
+
+        Map<Long, Integer> slotIndexById = parkingSlotInfoRepository.findLayoutRowsByMediaId(media.getId()).stream()
+                .collect(Collectors.toMap(SlotCoordinateRow::slotId, SlotCoordinateRow::slotIndex, (a, b) -> a));
+        for (ParkingSlotInfo slot : slots) {
+            assertEquals(slot.getSlotIndex(), slotIndexById.get(slot.getId()));
+        }
+    }
+
+    @Test
+    void missingValuesAreRejectedBeforeInserting() {
+        List<ParkingSlotInfo> slots = slots(0);
+        slots.get(3).setIsEmpty(null);
+        RuntimeException error = assertThrows(RuntimeException.class,
+                () -> parkingSlotBatchRepository.insertTrainSlots(media.getId(), slots));
+        assertTrue(error.getMessage().contains("Parking slot 3"), error.getMessage());
+
+        List<ParkingSlotInfo> missingPoint = slots(0);
+        missingPoint.get(5).getCoordinatesInfos().get(1).setRealX(null);
+        assertThrows(RuntimeException.class, () -> parkingSlotBatchRepository.insertTrainSlots(media.getId(), missingPoint));
+
+        List<ParkingSlotInfo> duplicated = slots(0);
+        duplicated.get(1).setSlotIndex(0);
+        assertThrows(RuntimeException.class, () -> parkingSlotBatchRepository.insertTrainSlots(media.getId(), duplicated));
+
+        assertTrue(parkingSlotInfoRepository.findLayoutRowsByMediaId(media.getId()).isEmpty());
+    }
+
+    @Test
+    void deleteRemovesTrainSlotsAndCoordinates() {
+        parkingSlotBatchRepository.insertTrainSlots(media.getId(), slots(0));
+        parkingSlotBatchRepository.deleteTrainSlots(media.getId());
+        assertTrue(parkingSlotInfoRepository.findLayoutRowsByMediaId(media.getId()).isEmpty());
+
+        parkingSlotBatchRepository.insertTrainSlots(media.getId(), slots(5));
+        List<SlotCoordinateRow> rows = parkingSlotInfoRepository.findLayoutRowsByMediaId(media.getId());
+        assertEquals(SLOTS * POINTS, rows.size());
+        assertEquals(5.0, rows.get(0).realY());
+    }
+
+    private List<ParkingSlotInfo> slots(double y) {
+        ZonedDateTime now = ZonedDateTime.now();
+        List<ParkingSlotInfo> slots = new ArrayList<>();
+        for (int slot = 0; slot < SLOTS; slot++) {
+            ParkingSlotInfo slotInfo = ParkingSlotInfo.builder()
+                    .slotIndex(slot)
+                    .isTrain(true)
+                    .isEmpty(slot % 2 == 0)
+                    .createdAt(now)
+                    .media(media)
+                    .build();
+            List<CoordinatesInfo> coordinatesInfos = new ArrayList<>();
+            for (int point = 0; point < POINTS; point++) {
+                double x = slot * 10.0 + point;
+                coordinatesInfos.add(CoordinatesInfo.builder()
+                        .pointOrder(point)
+                        .x(x / 2)
+                        .y(y / 2)
+                        .realX(x)
+                        .realY(y)
+                        .parkingSlotInfo(slotInfo)
+                        .build());
+            }
+            slotInfo.setCoordinatesInfos(coordinatesInfos);
+            slots.add(slotInfo);
+        }
+        return slots;
+    }
+}
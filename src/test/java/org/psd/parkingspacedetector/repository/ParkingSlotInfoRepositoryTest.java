@@ -0,0 +1,122 @@
+package org.psd.parkingspacedetector.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.psd.parkingspacedetector.entity.CoordinatesInfo;
+import org.psd.parkingspacedetector.entity.Media;
+import org.psd.parkingspacedetector.entity.ParkingSlotInfo;
+import org.psd.parkingspacedetector.service.layout.SlotLayout;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:layout;MODE=MSSQLServer;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.hbm2ddl.create_namespaces=true",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.show_sql=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class ParkingSlotInfoRepositoryTest {
+
+    private static final int SLOTS = 500;
+    private static final int POINTS = 4;
+
+    @Autowired
+    private ParkingSlotInfoRepository parkingSlotInfoRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Long mediaId;
+
+    @BeforeEach
+    void persistLayout() {
+        ZonedDateTime now = ZonedDateTime.now();
+        Media media = Media.builder()
+                .name("layout.jpg")
+                .path("layout.jpg")
+                .originalPath("layout.jpg")
+                .createdAt(now)
+                .build();
+        entityManager.persist(media);
+
+        for (int slot = 0; slot < SLOTS; slot++) {
+            ParkingSlotInfo slotInfo = ParkingSlotInfo.builder()
+                    .slotIndex(slot)
+                    .isTrain(true)
+                    .isEmpty(slot % 2 == 0)
+                    .createdAt(now)
+                    .media(media)
+                    .build();
+            List<CoordinatesInfo> coordinatesInfos = new ArrayList<>();
+            for (int point = POINTS - 1; point >= 0; point--) {
+                double x = slot * 10 + (point == 1 || point == 2 ? 8 : 0);
+                double y = point >= 2 ? 16 : 0;
+                coordinatesInfos.add(CoordinatesInfo.builder()
+                        .pointOrder(point)
+                        .x(x / 2)
+                        .y(y / 2)
+                        .realX(x)
+                        .realY(y)
+                        .parkingSlotInfo(slotInfo)
+                        .build());
+            }
+            slotInfo.setCoordinatesInfos(coordinatesInfos);
+            entityManager.persist(slotInfo);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        mediaId = media.getId();
+        statistics().clear();
+    }
+
+    @Test
+    void layoutRowsAreReadWithOneStatement() {
+        List<SlotCoordinateRow> rows = parkingSlotInfoRepository.findLayoutRowsByMediaId(mediaId);
+
+        assertEquals(1, statistics().getPrepareStatementCount());
+        assertEquals(SLOTS * POINTS, rows.size());
+        assertEquals(0, rows.get(0).pointOrder());
+        assertEquals(POINTS - 1, rows.get(POINTS - 1).pointOrder());
+
+        SlotLayout layout = SlotLayout.fromCoordinateRows(rows);
+        assertEquals(SLOTS, layout.size());
+        assertEquals(SLOTS - 1, layout.slotIndex(SLOTS - 1));
+        assertEquals(POINTS, layout.pointCount(0));
+        assertEquals(10, layout.x(1));
+        assertEquals(8, layout.width(1));
+        assertEquals(16, layout.height(1));
+    }
+
+    @Test
+    void walkingTheEntityGraphIssuesOneStatementPerSlot() {
+        List<ParkingSlotInfo> slotInfos = parkingSlotInfoRepository.findAllByMedia_Id(mediaId);
+        int points = slotInfos.stream().mapToInt(slotInfo -> slotInfo.getCoordinatesInfos().size()).sum();
+
+        assertEquals(SLOTS * POINTS, points);
+        assertEquals(1 + SLOTS, statistics().getPrepareStatementCount());
+    }
+
+    private Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+}
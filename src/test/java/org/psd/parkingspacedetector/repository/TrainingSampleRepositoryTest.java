@@ -0,0 +1,75 @@
+package org.psd.parkingspacedetector.repository;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.psd.parkingspacedetector.entity.Media;
+import org.psd.parkingspacedetector.entity.TrainingSample;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:samples;MODE=MSSQLServer;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.hbm2ddl.create_namespaces=true",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.show_sql=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class TrainingSampleRepositoryTest {
+
+    @Autowired
+    private TrainingSampleRepository trainingSampleRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void findsMediaWithSamplesOfAnotherFeatureVersion() {
+        Media current = persistMedia("current.jpg");
+        Media outdated = persistMedia("outdated.jpg");
+        Media untagged = persistMedia("untagged.jpg");
+        Media otherLayout = persistMedia("other.jpg");
+        persistSample(1L, current, "v2");
+        persistSample(1L, outdated, "v1");
+        persistSample(1L, outdated, "v2");
+        persistSample(1L, untagged, null);
+        persistSample(2L, otherLayout, "v1");
+        entityManager.flush();
+
+        List<Long> staleMediaIds = trainingSampleRepository.findMediaIdsWithOtherFeatureVersion(1L, "v2");
+
+        assertEquals(List.of(outdated.getId(), untagged.getId()), staleMediaIds.stream().sorted().toList());
+    }
+
+    private Media persistMedia(String name) {
+        Media media = Media.builder()
+                .name(name)
+                .path(name)
+                .originalPath(name)
+                .createdAt(ZonedDateTime.now())
+                .build();
+        entityManager.persist(media);
+        return media;
+    }
+
+    private void persistSample(Long layoutId, Media media, String featureVersion) {
+        entityManager.persist(TrainingSample.builder()
+                .layoutId(layoutId)
+                .slotIndex(0)
+                .isEmpty(true)
+                .features(new byte[72])
+                .featureVersion(featureVersion)
+                .createdAt(ZonedDateTime.now())
+                .media(media)
+                .build());
+    }
+}
@@ -0,0 +1,153 @@
+package org.psd.parkingspacedetector.service;
+
+import nu.pattern.OpenCV;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.opencv.core.Mat;
+import org.opencv.videoio.VideoCapture;
+import org.psd.parkingspacedetector.service.feature.FeatureExtractor;
+import org.psd.parkingspacedetector.service.feature.FeatureQuantizer;
+import org.psd.parkingspacedetector.service.feature.FrameNormalizer;
+import org.psd.parkingspacedetector.service.feature.PixelBuffer;
+import org.psd.parkingspacedetector.service.feature.SvdFeatureExtractor;
+import org.psd.parkingspacedetector.service.gate.SlotChangeGate;
+import org.psd.parkingspacedetector.service.layout.SlotLayout;
+import org.psd.parkingspacedetector.service.mat.MatScope;
+import org.psd.parkingspacedetector.service.svm.SvmPredictor;
+import weka.classifiers.functions.SMO;
+import weka.core.Attribute;
+import weka.core.DenseInstance;
+import weka.core.Instances;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Replays a synthetic recording at the production sampling rate with and
+ * without the change gate and checks the share of slot classifications the
+ * gate avoided and how often it disagreed with classifying every slot. The
+ * assertion messages carry the measured speed-up.
+ */
+@Tag("benchmark")
+class ChangeGateBenchmarkTest {
+
+    private static final int FRAME_COUNT = 1500;
+
+    @BeforeAll
+    static void loadOpenCV() {
+        OpenCV.loadLocally();
+    }
+
+    @Test
+    void reportsAvoidedClassifications() throws Exception {
+        SyntheticParkingVideo scene = new SyntheticParkingVideo(FRAME_COUNT, 2, 11);
+        SlotLayout slotLayout = SyntheticParkingVideo.layout();
+        FeatureExtractor featureExtractor = new SvdFeatureExtractor();
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        ImageProcessingService service = FrameClassifiers.create(featureExtractor, pool);
+        int frameInterval = (int) (SyntheticParkingVideo.FPS * 1.5);
+        Path video = scene.write();
+
+        try {
+            SvmPredictor svmModel = SvmPredictor.of(train(video, scene, slotLayout, featureExtractor, frameInterval));
+            SlotChangeGate changeGate = new SlotChangeGate(slotLayout.size(), 0.05, 20);
+            long gatedNanos = 0;
+            long fullNanos = 0;
+            int disagreements = 0;
+            int fullErrors = 0;
+
+            VideoCapture capture = new VideoCapture(video.toString());
+            FrameNormalizer normalizer = new FrameNormalizer(slotLayout);
+            Mat frame = new Mat();
+            try {
+                for (int i = 0; capture.read(frame); i++) {
+                    if (i % frameInterval != 0) {
+                        continue;
+                    }
+                    if (i == 0) {
+                        for (int warmup = 0; warmup < 5; warmup++) {
+                            service.classifyFrame(frame, slotLayout, svmModel);
+                        }
+                    }
+                    long start = System.nanoTime();
+                    FramePredictions gated = service.classifyFrame(frame, slotLayout, svmModel, changeGate, normalizer);
+                    gatedNanos += System.nanoTime() - start;
+
+                    start = System.nanoTime();
+                    FramePredictions full = service.classifyFrame(frame, slotLayout, svmModel);
+                    fullNanos += System.nanoTime() - start;
+
+                    for (int slot = 0; slot < slotLayout.size(); slot++) {
+                        disagreements += gated.isOccupied(slot) != full.isOccupied(slot) ? 1 : 0;
+                        fullErrors += full.isOccupied(slot) != scene.isOccupied(slot, i) ? 1 : 0;
+                    }
+                }
+            } finally {
+                normalizer.close();
+                frame.release();
+                capture.release();
+            }
+
+            double avoided = changeGate.getAvoidedFraction();
+            long samples = changeGate.getSlotsEvaluated() / slotLayout.size();
+            String summary = String.format("%.1f%% of %d slot evaluations avoided, %d disagreements with full classification "
+                            + "(%d errors vs ground truth), analysis %.1f ms -> %.1f ms per sample", avoided * 100,
+                    changeGate.getSlotsEvaluated(), disagreements, fullErrors, fullNanos / 1e6 / samples, gatedNanos / 1e6 / samples);
+            assertTrue(avoided > 0.5, summary);
+            assertTrue(disagreements <= changeGate.getSlotsEvaluated() / 50, summary);
+        } finally {
+            pool.shutdown();
+            Files.deleteIfExists(video);
+        }
+    }
+
+    private static SMO train(Path video, SyntheticParkingVideo scene, SlotLayout slotLayout, FeatureExtractor featureExtractor,
+                             int frameInterval) throws Exception {
+        ArrayList<Attribute> attributes = new ArrayList<>();
+        for (int i = 0; i < FeatureExtractor.FEATURE_COUNT; i++) {
+            attributes.add(new Attribute("f" + i));
+        }
+        attributes.add(new Attribute("isEmpty", Arrays.asList("true", "false")));
+        Instances data = new Instances("ParkingSlotTrain", attributes, 0);
+        data.setClassIndex(data.numAttributes() - 1);
+
+        PixelBuffer pixels = new PixelBuffer();
+        VideoCapture capture = new VideoCapture(video.toString());
+        FrameNormalizer normalizer = new FrameNormalizer(slotLayout);
+        Mat frame = new Mat();
+        try {
+            // Train on frames between the production samples.
+            for (int i = 0; capture.read(frame); i++) {
+                if (i % (frameInterval * 2) != frameInterval / 2) {
+                    continue;
+                }
+                normalizer.normalize(frame);
+                for (int slot = 0; slot < slotLayout.size(); slot++) {
+                    double[] values = new double[data.numAttributes()];
+                    try (MatScope scope = new MatScope()) {
+                        featureExtractor.extract(pixels.load(normalizer.slot(slotLayout, slot, scope)), values, 0);
+                    }
+                    for (int f = 0; f < FeatureExtractor.FEATURE_COUNT; f++) {
+                        values[f] = FeatureQuantizer.quantize(values[f]);
+                    }
+                    values[values.length - 1] = data.classAttribute().indexOfValue(scene.isOccupied(slot, i) ? "false" : "true");
+                    data.add(new DenseInstance(1.0, values));
+                }
+            }
+        } finally {
+            normalizer.close();
+            frame.release();
+            capture.release();
+        }
+
+        SMO svmModel = new SMO();
+        svmModel.buildClassifier(data);
+        return svmModel;
+    }
+}
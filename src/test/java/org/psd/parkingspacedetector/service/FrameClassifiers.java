@@ -0,0 +1,20 @@
+package org.psd.parkingspacedetector.service;
+
+import org.psd.parkingspacedetector.service.feature.FeatureExtractor;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * {@link ImageProcessingService} wired for frame classification only, for
+ * tests and benchmarks that run without a Spring context. Everything outside
+ * {@code classifyFrame} is left unwired.
+ */
+public final class FrameClassifiers {
+
+    private FrameClassifiers() {
+    }
+
+    public static ImageProcessingService create(FeatureExtractor featureExtractor, ForkJoinPool featureExtractionPool) {
+        return new ImageProcessingService(null, null, null, null, featureExtractor, featureExtractionPool, null, null, null, null);
+    }
+}
@@ -0,0 +1,141 @@
+package org.psd.parkingspacedetector.service;
+
+import nu.pattern.OpenCV;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.opencv.core.Size;
+import org.opencv.videoio.VideoCapture;
+import org.opencv.videoio.VideoWriter;
+import org.psd.parkingspacedetector.service.feature.FeatureExtractor;
+import org.psd.parkingspacedetector.service.feature.FrameNormalizer;
+import org.psd.parkingspacedetector.service.feature.SvdFeatureExtractor;
+import org.psd.parkingspacedetector.service.gate.SlotChangeGate;
+import org.psd.parkingspacedetector.service.layout.SlotLayout;
+import org.psd.parkingspacedetector.service.mat.NativeMatTracker;
+import org.psd.parkingspacedetector.service.pipeline.VideoPipeline;
+import org.psd.parkingspacedetector.service.svm.SvmPredictor;
+import weka.classifiers.functions.SMO;
+import weka.core.Attribute;
+import weka.core.DenseInstance;
+import weka.core.Instances;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Decodes, classifies and re-encodes thousands of frames and checks that
+ * neither the tracked Mats nor the process' native (non-heap) resident
+ * memory grow once the pipeline has warmed up.
+ */
+@Tag("soak")
+class NativeMemorySoakTest {
+
+    private static final int FRAME_COUNT = 3000;
+    private static final int WARMUP_FRAMES = 300;
+    private static final long MAX_NATIVE_GROWTH_BYTES = 64L << 20;
+
+    @BeforeAll
+    static void loadOpenCV() {
+        OpenCV.loadLocally();
+    }
+
+    @Test
+    void nativeMemoryStaysFlat() throws Exception {
+        SyntheticParkingVideo scene = new SyntheticParkingVideo(FRAME_COUNT, 4, 21);
+        SlotLayout slotLayout = SyntheticParkingVideo.layout();
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        ImageProcessingService service = FrameClassifiers.create(new SvdFeatureExtractor(), pool);
+        SvmPredictor svmModel = SvmPredictor.of(randomModel());
+        Path input = scene.write();
+        Path output = Files.createTempFile("soak-output", ".avi");
+
+        int trackedBefore = NativeMatTracker.getLiveMats();
+        AtomicInteger trackedAfterWarmup = new AtomicInteger();
+        AtomicInteger maxTracked = new AtomicInteger();
+        AtomicLong nativeAfterWarmup = new AtomicLong();
+        AtomicLong maxNative = new AtomicLong();
+
+        VideoCapture video = new VideoCapture(input.toString());
+        VideoWriter writer = new VideoWriter(output.toString(), VideoWriter.fourcc('M', 'J', 'P', 'G'), SyntheticParkingVideo.FPS,
+                new Size(SyntheticParkingVideo.WIDTH, SyntheticParkingVideo.HEIGHT));
+        try (FrameNormalizer normalizer = new FrameNormalizer(slotLayout)) {
+            SlotChangeGate changeGate = SlotChangeGate.disabled(slotLayout.size());
+            new VideoPipeline(video, writer, 8).run((frameIndex, frame) -> {
+                service.classifyFrame(frame, slotLayout, svmModel, changeGate, normalizer);
+                if (frameIndex == WARMUP_FRAMES) {
+                    trackedAfterWarmup.set(NativeMatTracker.getLiveMats());
+                    nativeAfterWarmup.set(nativeResidentBytes());
+                } else if (frameIndex > WARMUP_FRAMES && frameIndex % 100 == 0) {
+                    maxTracked.accumulateAndGet(NativeMatTracker.getLiveMats(), Math::max);
+                    maxNative.accumulateAndGet(nativeResidentBytes(), Math::max);
+                }
+            });
+        } finally {
+            video.release();
+            writer.release();
+            pool.shutdown();
+            Files.deleteIfExists(input);
+            Files.deleteIfExists(output);
+        }
+
+        assertEquals(trackedBefore, NativeMatTracker.getLiveMats(), "tracked Mats leaked");
+        assertTrue(maxTracked.get() <= trackedAfterWarmup.get(),
+                "tracked Mats grew from " + trackedAfterWarmup.get() + " to " + maxTracked.get() + " after warm-up");
+        if (nativeAfterWarmup.get() > 0) {
+            assertTrue(maxNative.get() - nativeAfterWarmup.get() < MAX_NATIVE_GROWTH_BYTES,
+                    "native memory grew by " + ((maxNative.get() - nativeAfterWarmup.get()) >> 20) + " MB");
+        }
+    }
+
+    /**
+     * Resident set size minus the committed Java heap, or 0 where
+     * {@code /proc} is not available.
+     */
+    private static long nativeResidentBytes() {
+        try {
+            List<String> status = Files.readAllLines(Path.of("/proc/self/status"));
+            for (String line : status) {
+                if (line.startsWith("VmRSS:")) {
+                    long residentBytes = Long.parseLong(line.replaceAll("\\D", "")) << 10;
+                    return residentBytes - Runtime.getRuntime().totalMemory();
+                }
+            }
+        } catch (Exception e) {
+            return 0;
+        }
+        return 0;
+    }
+
+    private static SMO randomModel() throws Exception {
+        ArrayList<Attribute> attributes = new ArrayList<>();
+        for (int i = 0; i < FeatureExtractor.FEATURE_COUNT; i++) {
+            attributes.add(new Attribute("f" + i));
+        }
+        attributes.add(new Attribute("isEmpty", Arrays.asList("true", "false")));
+        Instances data = new Instances("ParkingSlotTrain", attributes, 0);
+        data.setClassIndex(data.numAttributes() - 1);
+        Random random = new Random(4);
+        for (int i = 0; i < 100; i++) {
+            double[] values = new double[data.numAttributes()];
+            for (int j = 0; j < FeatureExtractor.FEATURE_COUNT; j++) {
+                values[j] = (random.nextDouble() - 0.5) * 0.2;
+            }
+            values[values.length - 1] = values[0] > 0 ? 1 : 0;
+            data.add(new DenseInstance(1.0, values));
+        }
+        SMO svmModel = new SMO();
+        svmModel.buildClassifier(data);
+        return svmModel;
+    }
+}
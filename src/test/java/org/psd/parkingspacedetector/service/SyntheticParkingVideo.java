@@ -0,0 +1,151 @@
+package org.psd.parkingspacedetector.service;
+
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Point;
+import org.opencv.core.Scalar;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+import org.opencv.videoio.VideoWriter;
+import org.psd.parkingspacedetector.dto.request.ParkingSlotDetail;
+import org.psd.parkingspacedetector.dto.request.PointInfo;
+import org.psd.parkingspacedetector.service.layout.SlotLayout;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Fixed-seed parking lot recording for benchmarks: two rows of slots on
+ * textured asphalt, cars that arrive and leave a few times per slot, sensor
+ * noise, a slow lighting drift and MJPG compression.
+ */
+final class SyntheticParkingVideo {
+
+    static final int WIDTH = 640;
+    static final int HEIGHT = 360;
+    static final double FPS = 25;
+    static final int SLOT_COLUMNS = 6;
+    static final int SLOT_WIDTH = 90;
+    static final int SLOT_HEIGHT = 140;
+
+    private final int frameCount;
+    private final boolean[][] occupied;
+    private final Scalar[] carColors;
+
+    SyntheticParkingVideo(int frameCount, int togglesPerSlot, long seed) {
+        Random random = new Random(seed);
+        this.frameCount = frameCount;
+        this.occupied = new boolean[slotCount()][frameCount];
+        this.carColors = new Scalar[slotCount()];
+        for (int slot = 0; slot < slotCount(); slot++) {
+            boolean state = random.nextBoolean();
+            int[] toggles = random.ints(togglesPerSlot, 1, frameCount).sorted().toArray();
+            int next = 0;
+            for (int frame = 0; frame < frameCount; frame++) {
+                if (next < toggles.length && toggles[next] == frame) {
+                    state = !state;
+                    next++;
+                }
+                occupied[slot][frame] = state;
+            }
+            carColors[slot] = new Scalar(30 + random.nextInt(150), 30 + random.nextInt(150), 30 + random.nextInt(150));
+        }
+    }
+
+    static int slotCount() {
+        return SLOT_COLUMNS * 2;
+    }
+
+    int frameCount() {
+        return frameCount;
+    }
+
+    boolean isOccupied(int slot, int frame) {
+        return occupied[slot][frame];
+    }
+
+    static SlotLayout layout() {
+        List<ParkingSlotDetail> slots = new ArrayList<>();
+        for (int slot = 0; slot < slotCount(); slot++) {
+            double x = slotX(slot);
+            double y = slotY(slot);
+            slots.add(new ParkingSlotDetail(slot, null, List.of(
+                    new PointInfo(1, 0.0, 0.0, x, y),
+                    new PointInfo(2, 0.0, 0.0, x + SLOT_WIDTH, y),
+                    new PointInfo(3, 0.0, 0.0, x + SLOT_WIDTH, y + SLOT_HEIGHT),
+                    new PointInfo(4, 0.0, 0.0, x, y + SLOT_HEIGHT))));
+        }
+        return SlotLayout.fromSlotDetails(slots);
+    }
+
+    Path write() throws Exception {
+        Path video = Files.createTempFile("synthetic-parking", ".avi");
+        VideoWriter writer = new VideoWriter(video.toString(), VideoWriter.fourcc('M', 'J', 'P', 'G'), FPS, new Size(WIDTH, HEIGHT));
+        if (!writer.isOpened()) {
+            throw new IllegalStateException("Failed to create synthetic video.");
+        }
+        Mat background = background();
+        Mat frame = new Mat();
+        Mat noisy = new Mat();
+        Mat noise = new Mat(HEIGHT, WIDTH, CvType.CV_16SC3);
+        Core.setRNGSeed(7);
+        try {
+            for (int i = 0; i < frameCount; i++) {
+                background.copyTo(frame);
+                for (int slot = 0; slot < slotCount(); slot++) {
+                    if (occupied[slot][i]) {
+                        drawCar(frame, slot);
+                    }
+                }
+                double drift = 6 * Math.sin(2 * Math.PI * i / frameCount);
+                Core.randn(noise, drift, 3);
+                frame.convertTo(noisy, CvType.CV_16SC3);
+                Core.add(noisy, noise, noisy);
+                noisy.convertTo(frame, CvType.CV_8UC3);
+                writer.write(frame);
+            }
+        } finally {
+            writer.release();
+            background.release();
+            frame.release();
+            noisy.release();
+            noise.release();
+        }
+        return video;
+    }
+
+    private static Mat background() {
+        Mat background = new Mat(HEIGHT, WIDTH, CvType.CV_8UC3);
+        Core.setRNGSeed(3);
+        Core.randn(background, 95, 10);
+        Imgproc.GaussianBlur(background, background, new Size(5, 5), 1.5);
+        for (int slot = 0; slot < slotCount(); slot++) {
+            Imgproc.rectangle(background, new Point(slotX(slot), slotY(slot)),
+                    new Point(slotX(slot) + SLOT_WIDTH, slotY(slot) + SLOT_HEIGHT), new Scalar(235, 235, 235), 2);
+        }
+        return background;
+    }
+
+    private void drawCar(Mat frame, int slot) {
+        int left = slotX(slot) + 12;
+        int top = slotY(slot) + 14;
+        int right = slotX(slot) + SLOT_WIDTH - 12;
+        int bottom = slotY(slot) + SLOT_HEIGHT - 14;
+        Imgproc.rectangle(frame, new Point(left, top), new Point(right, bottom), carColors[slot], -1);
+        Imgproc.rectangle(frame, new Point(left, top), new Point(right, bottom), new Scalar(20, 20, 20), 2);
+        Imgproc.rectangle(frame, new Point(left + 8, top + 18), new Point(right - 8, top + 42), new Scalar(200, 190, 170), -1);
+        Imgproc.rectangle(frame, new Point(left + 8, bottom - 30), new Point(right - 8, bottom - 12), new Scalar(180, 170, 160), -1);
+    }
+
+    private static int slotX(int slot) {
+        return 20 + (slot % SLOT_COLUMNS) * (SLOT_WIDTH + 12);
+    }
+
+    private static int slotY(int slot) {
+        return slot < SLOT_COLUMNS ? 20 : HEIGHT - 20 - SLOT_HEIGHT;
+    }
+}
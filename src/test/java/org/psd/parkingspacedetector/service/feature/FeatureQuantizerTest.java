@@ -0,0 +1,93 @@
+package org.psd.parkingspacedetector.service.feature;
+
+import org.junit.jupiter.api.Test;
+import weka.classifiers.functions.SMO;
+import weka.core.Attribute;
+import weka.core.DenseInstance;
+import weka.core.Instances;
+import weka.core.Utils;
+
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FeatureQuantizerTest {
+
+    private static final DecimalFormat LEGACY_FORMAT = new DecimalFormat("#.#######", DecimalFormatSymbols.getInstance(Locale.ROOT));
+
+    @Test
+    void quantizeMatchesLegacyStringRoundTrip() {
+        Random random = new Random(5);
+        List<Double> values = new ArrayList<>(Arrays.asList(0.0, 1e-17, -1e-17, 1.0 / 30, -1.0 / 7, Math.pow(10, -1.5), 0.5, -0.5));
+        for (int i = 0; i < 10_000; i++) {
+            values.add((random.nextDouble() - 0.5) * 0.4);
+        }
+
+        for (double value : values) {
+            assertEquals(legacyRoundTrip(value), FeatureQuantizer.quantize(value), 0.0, "value " + value);
+        }
+    }
+
+    @Test
+    void predictionsAreUnchanged() throws Exception {
+        Random random = new Random(9);
+        double[][] trainFeatures = randomFeatures(200, random);
+        double[][] testFeatures = randomFeatures(200, random);
+        String[] labels = new String[trainFeatures.length];
+        for (int i = 0; i < labels.length; i++) {
+            labels[i] = trainFeatures[i][0] + trainFeatures[i][4] > 0 ? "true" : "false";
+        }
+
+        SMO legacyModel = new SMO();
+        legacyModel.buildClassifier(dataset(trainFeatures, labels, true));
+        SMO numericModel = new SMO();
+        numericModel.buildClassifier(dataset(trainFeatures, labels, false));
+
+        Instances legacyTest = dataset(testFeatures, null, true);
+        Instances numericTest = dataset(testFeatures, null, false);
+        for (int i = 0; i < testFeatures.length; i++) {
+            assertEquals(legacyModel.classifyInstance(legacyTest.instance(i)),
+                    numericModel.classifyInstance(numericTest.instance(i)), 0.0, "instance " + i);
+        }
+    }
+
+    private static double legacyRoundTrip(double value) {
+        return Double.parseDouble(LEGACY_FORMAT.format(value));
+    }
+
+    private static double[][] randomFeatures(int count, Random random) {
+        double[][] features = new double[count][FeatureExtractor.FEATURE_COUNT];
+        for (double[] row : features) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] = (random.nextDouble() - 0.5) * 0.2;
+            }
+        }
+        return features;
+    }
+
+    private static Instances dataset(double[][] features, String[] labels, boolean legacy) {
+        ArrayList<Attribute> attributes = new ArrayList<>();
+        for (int i = 0; i < FeatureExtractor.FEATURE_COUNT; i++) {
+            attributes.add(new Attribute("f" + i));
+        }
+        attributes.add(new Attribute("isEmpty", Arrays.asList("true", "false")));
+        Instances data = new Instances("ParkingSlotTrain", attributes, features.length);
+        data.setClassIndex(data.numAttributes() - 1);
+
+        for (int i = 0; i < features.length; i++) {
+            double[] values = new double[data.numAttributes()];
+            for (int j = 0; j < FeatureExtractor.FEATURE_COUNT; j++) {
+                values[j] = legacy ? legacyRoundTrip(features[i][j]) : FeatureQuantizer.quantize(features[i][j]);
+            }
+            values[values.length - 1] = labels == null ? Utils.missingValue() : data.classAttribute().indexOfValue(labels[i]);
+            data.add(new DenseInstance(1.0, values));
+        }
+        return data;
+    }
+}
@@ -0,0 +1,40 @@
+package org.psd.parkingspacedetector.service.feature;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FeatureRowsTest {
+
+    @Test
+    void rowsRoundTripExactly() {
+        Random random = new Random(3);
+        int rows = 50;
+        double[] features = new double[rows * FeatureExtractor.FEATURE_COUNT];
+        for (int i = 0; i < features.length; i++) {
+            features[i] = (random.nextDouble() - 0.5) * 0.4;
+        }
+        features[0] = -0.0;
+        FeatureQuantizer.quantize(features);
+
+        double[] decoded = new double[features.length];
+        for (int row = 0; row < rows; row++) {
+            int offset = row * FeatureExtractor.FEATURE_COUNT;
+            byte[] encoded = FeatureRows.encode(features, offset);
+            assertEquals(FeatureRows.ROW_BYTES, encoded.length);
+            FeatureRows.decode(encoded, decoded, offset);
+        }
+
+        for (int i = 0; i < features.length; i++) {
+            assertEquals(Double.doubleToRawLongBits(features[i]), Double.doubleToRawLongBits(decoded[i]), "feature " + i);
+        }
+    }
+
+    @Test
+    void rejectsRowsOfAnotherWidth() {
+        assertThrows(RuntimeException.class, () -> FeatureRows.decode(new byte[FeatureRows.ROW_BYTES - 8], new double[9], 0));
+    }
+}
@@ -0,0 +1,111 @@
+package org.psd.parkingspacedetector.service.feature;
+
+import nu.pattern.OpenCV;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Point;
+import org.opencv.core.Rect;
+import org.opencv.core.Scalar;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+import org.psd.parkingspacedetector.dto.request.ParkingSlotDetail;
+import org.psd.parkingspacedetector.dto.request.PointInfo;
+import org.psd.parkingspacedetector.service.layout.SlotLayout;
+import org.psd.parkingspacedetector.service.mat.MatScope;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FrameNormalizerTest {
+
+    @BeforeAll
+    static void loadOpenCV() {
+        OpenCV.loadLocally();
+    }
+
+    @Test
+    void slotPixelsMatchFullFrameNormalization() {
+        assertMatchesFullFrame(layout(new Rect(300, 200, 90, 140), new Rect(420, 210, 90, 140), new Rect(350, 380, 120, 60)));
+    }
+
+    @Test
+    void slotsAtTheFrameEdgeMatchFullFrameNormalization() {
+        assertMatchesFullFrame(layout(new Rect(0, 0, 80, 120), new Rect(0, 360, 80, 120)));
+    }
+
+    @Test
+    void reusesBuffersAcrossFrames() {
+        SlotLayout slotLayout = layout(new Rect(300, 200, 90, 140));
+        try (FrameNormalizer normalizer = new FrameNormalizer(slotLayout)) {
+            Mat first = normalizer.normalize(frame(1));
+            long address = first.dataAddr();
+            Mat second = normalizer.normalize(frame(2));
+            assertEquals(address, second.dataAddr());
+            assertEquals(new Rect(300 - FrameNormalizer.MARGIN, 200 - FrameNormalizer.MARGIN,
+                    90 + 2 * FrameNormalizer.MARGIN, 140 + 2 * FrameNormalizer.MARGIN), normalizer.getRegion());
+        }
+    }
+
+    private static void assertMatchesFullFrame(SlotLayout slotLayout) {
+        Mat frame = frame(3);
+        Mat expected = normalizeFullFrame(frame);
+        try (FrameNormalizer normalizer = new FrameNormalizer(slotLayout); MatScope scope = new MatScope()) {
+            normalizer.normalize(frame);
+            assertTrue(normalizer.getRegion().area() < frame.rows() * frame.cols());
+            for (int slot = 0; slot < slotLayout.size(); slot++) {
+                Mat difference = scope.newMat();
+                Core.absdiff(normalizer.slot(slotLayout, slot, scope), scope.submat(expected, slotLayout.rect(slot)), difference);
+                assertEquals(0, Core.countNonZero(difference), "slot " + slot);
+            }
+        } finally {
+            frame.release();
+            expected.release();
+        }
+    }
+
+    private static Mat normalizeFullFrame(Mat image) {
+        Mat grayImage = new Mat();
+        Imgproc.cvtColor(image, grayImage, Imgproc.COLOR_BGR2GRAY);
+        Mat blurredImage = new Mat();
+        Imgproc.GaussianBlur(grayImage, blurredImage, new Size(3, 3), 1);
+        Mat thresholdImage = new Mat();
+        Imgproc.adaptiveThreshold(blurredImage, thresholdImage, 255, Imgproc.ADAPTIVE_THRESH_GAUSSIAN_C, Imgproc.THRESH_BINARY_INV, 25, 16);
+        Mat medianBlurredImage = new Mat();
+        Imgproc.medianBlur(thresholdImage, medianBlurredImage, 5);
+        grayImage.release();
+        blurredImage.release();
+        thresholdImage.release();
+        return medianBlurredImage;
+    }
+
+    private static Mat frame(long seed) {
+        Random random = new Random(seed);
+        Mat frame = new Mat(480, 640, CvType.CV_8UC3);
+        Core.setRNGSeed((int) seed);
+        Core.randn(frame, 100, 25);
+        for (int i = 0; i < 60; i++) {
+            Point corner = new Point(random.nextInt(640), random.nextInt(480));
+            Point opposite = new Point(corner.x + random.nextInt(80), corner.y + random.nextInt(80));
+            Imgproc.rectangle(frame, corner, opposite, new Scalar(random.nextInt(256), random.nextInt(256), random.nextInt(256)), -1);
+        }
+        return frame;
+    }
+
+    private static SlotLayout layout(Rect... rects) {
+        List<ParkingSlotDetail> slots = new ArrayList<>();
+        for (int i = 0; i < rects.length; i++) {
+            Rect rect = rects[i];
+            slots.add(new ParkingSlotDetail(i, null, List.of(
+                    new PointInfo(1, 0.0, 0.0, (double) rect.x, (double) rect.y),
+                    new PointInfo(2, 0.0, 0.0, (double) rect.x + rect.width, (double) rect.y + rect.height))));
+        }
+        return SlotLayout.fromSlotDetails(slots);
+    }
+}
@@ -0,0 +1,86 @@
+package org.psd.parkingspacedetector.service.occupancy;
+
+import org.junit.jupiter.api.Test;
+import org.psd.parkingspacedetector.dto.response.OccupancyIntervalDTO;
+import org.psd.parkingspacedetector.dto.response.SlotUtilizationDTO;
+import org.psd.parkingspacedetector.entity.OccupancyTransition;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class OccupancyIntervalsTest {
+
+    @Test
+    void transitionsAreStitchedIntoClippedRuns() {
+        List<OccupancyTransition> transitions = List.of(
+                transition(1, 17, false, 0),
+                transition(1, 17, true, 150),
+                transition(1, 17, true, 180),
+                transition(1, 17, false, 300),
+                transition(1, 18, true, 50),
+                transition(2, 17, true, 250));
+
+        List<OccupancyIntervalDTO> intervals = OccupancyIntervals.stitch(transitions, 100, 400);
+
+        assertEquals(List.of(
+                new OccupancyIntervalDTO(1L, 17, false, 100, 150),
+                new OccupancyIntervalDTO(1L, 17, true, 150, 300),
+                new OccupancyIntervalDTO(1L, 17, false, 300, 400),
+                new OccupancyIntervalDTO(1L, 18, true, 100, 400),
+                new OccupancyIntervalDTO(2L, 17, true, 250, 400)), intervals);
+    }
+
+    @Test
+    void simultaneousTransitionsLeaveNoEmptyRun() {
+        List<OccupancyTransition> transitions = List.of(
+                transition(1, 3, true, 100),
+                transition(1, 3, false, 100),
+                transition(1, 3, true, 200));
+
+        assertEquals(List.of(
+                new OccupancyIntervalDTO(1L, 3, false, 100, 200),
+                new OccupancyIntervalDTO(1L, 3, true, 200, 300)), OccupancyIntervals.stitch(transitions, 0, 300));
+    }
+
+    @Test
+    void runsEndAtTheEndOfSourceMarker() {
+        List<OccupancyTransition> transitions = List.of(
+                transition(1, 17, true, 100),
+                transition(1, 17, null, 250),
+                transition(1, 17, false, 500),
+                transition(1, 18, false, 50),
+                transition(1, 18, null, 80));
+
+        assertEquals(List.of(
+                new OccupancyIntervalDTO(1L, 17, true, 100, 250),
+                new OccupancyIntervalDTO(1L, 17, false, 500, 600),
+                new OccupancyIntervalDTO(1L, 18, false, 50, 80)), OccupancyIntervals.stitch(transitions, 0, 600));
+        assertEquals(List.of(
+                new OccupancyIntervalDTO(1L, 17, true, 100, 250),
+                new OccupancyIntervalDTO(1L, 18, false, 50, 80)), OccupancyIntervals.stitch(transitions, 0, 400));
+    }
+
+    @Test
+    void utilizationSumsRunsPerSlot() {
+        List<OccupancyIntervalDTO> intervals = List.of(
+                new OccupancyIntervalDTO(1L, 17, true, 100, 150),
+                new OccupancyIntervalDTO(1L, 17, false, 150, 300),
+                new OccupancyIntervalDTO(1L, 17, true, 300, 400),
+                new OccupancyIntervalDTO(1L, 18, false, 250, 400));
+
+        assertEquals(List.of(
+                new SlotUtilizationDTO(1L, 17, 300, 150, 0.5, 1),
+                new SlotUtilizationDTO(1L, 18, 150, 0, 0.0, 0)), OccupancyIntervals.utilization(intervals));
+    }
+
+    private static OccupancyTransition transition(long sourceId, int slotIndex, Boolean occupied, long observedAt) {
+        return OccupancyTransition.builder()
+                .layoutId(9L)
+                .sourceId(sourceId)
+                .slotIndex(slotIndex)
+                .occupied(occupied)
+                .observedAt(observedAt)
+                .build();
+    }
+}
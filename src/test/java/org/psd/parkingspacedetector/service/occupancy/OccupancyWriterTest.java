@@ -0,0 +1,103 @@
+package org.psd.parkingspacedetector.service.occupancy;
+
+import org.junit.jupiter.api.Test;
+import org.psd.parkingspacedetector.service.stream.OccupancyEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OccupancyWriterTest {
+
+    @Test
+    void queuedTransitionsAreWrittenInOrderedBatches() throws Exception {
+        List<List<OccupancyEvent>> batches = new CopyOnWriteArrayList<>();
+        CountDownLatch release = new CountDownLatch(1);
+        OccupancyWriter writer = new OccupancyWriter(10_000, 500, 50, batch -> {
+            awaitQuietly(release);
+            batches.add(new ArrayList<>(batch));
+        });
+        writer.start();
+        for (int i = 0; i < 2_400; i++) {
+            assertTrue(writer.offer(event(i)));
+        }
+        release.countDown();
+        writer.close();
+
+        List<OccupancyEvent> written = batches.stream().flatMap(List::stream).toList();
+        assertEquals(2_400, written.size());
+        for (int i = 0; i < written.size(); i++) {
+            assertEquals(i, written.get(i).timestamp());
+        }
+        assertTrue(batches.stream().allMatch(batch -> batch.size() <= 500));
+        assertTrue(batches.size() <= 6, "expected a handful of batches but got " + batches.size());
+    }
+
+    @Test
+    void offerRejectsWhenQueueIsFull() {
+        OccupancyWriter writer = new OccupancyWriter(2, 10, 0, batch -> {
+        });
+        assertTrue(writer.offer(event(0)));
+        assertTrue(writer.offer(event(1)));
+        assertFalse(writer.offer(event(2)));
+        assertEquals(2, writer.getPending());
+    }
+
+    @Test
+    void failedBatchDoesNotStopTheWriter() throws Exception {
+        List<OccupancyEvent> written = new CopyOnWriteArrayList<>();
+        OccupancyWriter writer = new OccupancyWriter(100, 1, 0, batch -> {
+            if (batch.get(0).timestamp() == 0) {
+                throw new IllegalStateException("database unavailable");
+            }
+            written.addAll(batch);
+        });
+        writer.start();
+        writer.offer(event(0));
+        writer.offer(event(1));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (written.isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        writer.close();
+
+        assertEquals(List.of(event(1)), written);
+    }
+
+    @Test
+    void commandsRunBetweenTheEventsQueuedAroundThem() throws Exception {
+        List<String> log = new CopyOnWriteArrayList<>();
+        CountDownLatch release = new CountDownLatch(1);
+        OccupancyWriter writer = new OccupancyWriter(100, 50, 50, batch -> {
+            awaitQuietly(release);
+            batch.forEach(event -> log.add("event " + event.timestamp()));
+        });
+        writer.start();
+        writer.offer(event(0));
+        writer.offer(event(1));
+        writer.submit(() -> log.add("delete"));
+        writer.offer(event(2));
+        release.countDown();
+        writer.close();
+
+        assertEquals(List.of("event 0", "event 1", "delete", "event 2"), log);
+    }
+
+    private static OccupancyEvent event(long timestamp) {
+        return new OccupancyEvent(1L, 2L, (int) (timestamp % 7), timestamp % 2 == 0, 1.0, timestamp);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package org.psd.parkingspacedetector.service.output;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.psd.parkingspacedetector.dto.request.ParkingSlotDetail;
+import org.psd.parkingspacedetector.dto.request.PointInfo;
+import org.psd.parkingspacedetector.service.FramePredictions;
+import org.psd.parkingspacedetector.service.layout.SlotLayout;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DetectionResultWriterTest {
+
+    private static final SlotLayout LAYOUT = SlotLayout.fromSlotDetails(List.of(
+            slot(4, 0), slot(9, 20)));
+    private static final FramePredictions FIRST = new FramePredictions(new double[]{1.0, 0.0}, new double[]{0.9, 0.75});
+    private static final FramePredictions SECOND = new FramePredictions(new double[]{0.0, 0.0}, new double[]{0.5, 1.0});
+
+    private Path output;
+
+    @AfterEach
+    void deleteOutput() throws IOException {
+        if (output != null) {
+            Files.deleteIfExists(output);
+        }
+    }
+
+    @Test
+    void csvHasOneRowPerSlotAndSample() throws IOException {
+        output = Files.createTempFile("detection", ".csv");
+        try (CsvResultWriter writer = new CsvResultWriter(output, LAYOUT)) {
+            writer.write(0, 0, null, FIRST, true);
+            writer.write(37, 1480, null, SECOND, true);
+        }
+
+        assertEquals(List.of(
+                CsvResultWriter.HEADER,
+                "0,0,4,true,0.9",
+                "0,0,9,false,0.75",
+                "37,1480,4,false,0.5",
+                "37,1480,9,false,1.0"), Files.readAllLines(output));
+    }
+
+    @Test
+    void jsonListsSlotIndexesOnceAndStatesPerSample() throws IOException {
+        output = Files.createTempFile("detection", ".json");
+        try (JsonResultWriter writer = new JsonResultWriter(output, LAYOUT)) {
+            writer.write(0, 0, null, FIRST, true);
+            writer.write(37, 1480, null, SECOND, false);
+        }
+
+        JsonNode result = new ObjectMapper().readTree(output.toFile());
+        assertEquals("[4,9]", result.get("slotIndexes").toString());
+        assertEquals(2, result.get("samples").size());
+        JsonNode sample = result.get("samples").get(1);
+        assertEquals(37, sample.get("frame").asLong());
+        assertEquals(1480, sample.get("timestampMs").asLong());
+        assertEquals("[false,false]", sample.get("occupied").toString());
+        assertEquals("[0.5,1.0]", sample.get("confidences").toString());
+    }
+
+    private static ParkingSlotDetail slot(int index, double x) {
+        return new ParkingSlotDetail(index, null, List.of(
+                new PointInfo(1, 0.0, 0.0, x, 0.0),
+                new PointInfo(2, 0.0, 0.0, x + 10, 10.0)));
+    }
+}
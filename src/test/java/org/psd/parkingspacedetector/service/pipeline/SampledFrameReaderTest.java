@@ -0,0 +1,122 @@
+package org.psd.parkingspacedetector.service.pipeline;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nu.pattern.OpenCV;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Scalar;
+import org.opencv.core.Size;
+import org.opencv.videoio.VideoCapture;
+import org.opencv.videoio.VideoWriter;
+import org.psd.parkingspacedetector.enums.EnumFrameSampling;
+import org.psd.parkingspacedetector.service.metrics.DetectorMetrics;
+import org.psd.parkingspacedetector.service.metrics.PipelineMeters;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SampledFrameReaderTest {
+
+    private static final int FRAME_COUNT = 50;
+
+    private Path video;
+
+    @BeforeAll
+    static void loadOpenCV() {
+        OpenCV.loadLocally();
+    }
+
+    @AfterEach
+    void deleteVideo() throws IOException {
+        if (video != null) {
+            Files.deleteIfExists(video);
+        }
+    }
+
+    @Test
+    void grabbingRetrievesOnlySampledFrames() throws IOException {
+        assertSamplesEverySeventhFrame(EnumFrameSampling.GRAB);
+    }
+
+    @Test
+    void seekingReadsTheSameFrames() throws IOException {
+        assertSamplesEverySeventhFrame(EnumFrameSampling.SEEK);
+    }
+
+    @Test
+    void everyGrabbedFrameIsCounted() throws IOException {
+        video = writeNumberedVideo();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        VideoCapture capture = new VideoCapture(video.toString());
+        try {
+            new SampledFrameReader(capture, 7, EnumFrameSampling.GRAB, new DetectorMetrics(registry).forLayout(1L))
+                    .run((frameIndex, frame) -> {
+                    }, position -> {
+                    });
+        } finally {
+            capture.release();
+        }
+
+        assertEquals(FRAME_COUNT, registry.get("detector.frames.read").counter().count());
+        assertEquals(FRAME_COUNT, registry.get("detector.stage.duration").tag("stage", "decode").timer().count());
+    }
+
+    @Test
+    void intervalMustBePositive() {
+        assertThrows(IllegalArgumentException.class, () -> new SampledFrameReader(null, 0, PipelineMeters.NONE));
+    }
+
+    private void assertSamplesEverySeventhFrame(EnumFrameSampling sampling) throws IOException {
+        video = writeNumberedVideo();
+        List<Long> sampledIndexes = new ArrayList<>();
+        List<Integer> sampledShades = new ArrayList<>();
+        List<Long> progress = new ArrayList<>();
+
+        VideoCapture capture = new VideoCapture(video.toString());
+        long samples;
+        try {
+            samples = new SampledFrameReader(capture, 7, sampling, PipelineMeters.NONE).run((frameIndex, frame) -> {
+                sampledIndexes.add(frameIndex);
+                sampledShades.add((int) Math.round(frame.get(8, 8)[0]));
+            }, progress::add);
+        } finally {
+            capture.release();
+        }
+
+        assertEquals(8, samples);
+        assertEquals(List.of(0L, 7L, 14L, 21L, 28L, 35L, 42L, 49L), sampledIndexes);
+        for (int i = 0; i < sampledIndexes.size(); i++) {
+            assertEquals(shade(sampledIndexes.get(i)), sampledShades.get(i), 6);
+        }
+        assertEquals(FRAME_COUNT, progress.get(progress.size() - 1).longValue());
+    }
+
+    private static Path writeNumberedVideo() throws IOException {
+        Path path = Files.createTempFile("sampled-reader", ".avi");
+        VideoWriter writer = new VideoWriter(path.toString(), VideoWriter.fourcc('M', 'J', 'P', 'G'), 25, new Size(64, 48));
+        Mat frame = new Mat(48, 64, CvType.CV_8UC3);
+        try {
+            for (int i = 0; i < FRAME_COUNT; i++) {
+                frame.setTo(new Scalar(shade(i), shade(i), shade(i)));
+                writer.write(frame);
+            }
+        } finally {
+            writer.release();
+            frame.release();
+        }
+        return path;
+    }
+
+    private static int shade(long frameIndex) {
+        return (int) (frameIndex * 5);
+    }
+}
@@ -0,0 +1,138 @@
+package org.psd.parkingspacedetector.service.stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OccupancySseBroadcasterTest {
+
+    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(2, 2, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+    private final OccupancySseBroadcaster broadcaster = new OccupancySseBroadcaster(new OccupancyPublisher(), executor, null);
+
+    @AfterEach
+    void shutDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void undeliveredEventsOfASlotAreReplacedByTheLatest() throws Exception {
+        CountDownLatch firstSendStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirstSend = new CountDownLatch(1);
+        RecordingEmitter emitter = new RecordingEmitter() {
+            @Override
+            protected void beforeSend() throws IOException {
+                if (firstSendStarted.getCount() > 0) {
+                    firstSendStarted.countDown();
+                    await(releaseFirstSend);
+                }
+            }
+        };
+        broadcaster.subscribe(1L, emitter);
+
+        broadcaster.onOccupancyChanged(event(1, true, 1));
+        assertTrue(firstSendStarted.await(5, TimeUnit.SECONDS));
+        broadcaster.onOccupancyChanged(event(1, false, 2));
+        broadcaster.onOccupancyChanged(event(2, true, 3));
+        broadcaster.onOccupancyChanged(event(1, true, 4));
+        releaseFirstSend.countDown();
+
+        emitter.awaitEvents(3);
+        assertEquals(List.of(1L, 3L, 4L), emitter.events.stream().map(OccupancyEvent::timestamp).toList());
+    }
+
+    @Test
+    void subscriberThatFailsToReceiveIsDropped() throws Exception {
+        RecordingEmitter emitter = new RecordingEmitter() {
+            @Override
+            protected void beforeSend() throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+        broadcaster.subscribe(1L, emitter);
+
+        broadcaster.onOccupancyChanged(event(1, true, 1));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (broadcaster.getSubscriberCount(1L) > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, broadcaster.getSubscriberCount(1L));
+    }
+
+    @Test
+    void completedSubscriberIsRemoved() throws Exception {
+        RecordingEmitter completed = new RecordingEmitter();
+        RecordingEmitter open = new RecordingEmitter();
+        broadcaster.subscribe(1L, completed);
+        broadcaster.subscribe(1L, open);
+        broadcaster.onOccupancyChanged(event(1, true, 1));
+        open.awaitEvents(1);
+        completed.awaitEvents(1);
+
+        completed.completionCallback.run();
+        broadcaster.onOccupancyChanged(event(1, false, 2));
+
+        open.awaitEvents(2);
+        assertEquals(1, broadcaster.getSubscriberCount(1L));
+        assertEquals(1, completed.events.size());
+    }
+
+    private static OccupancyEvent event(int slotIndex, boolean occupied, long timestamp) {
+        return new OccupancyEvent(1L, 10L, slotIndex, occupied, 1.0, timestamp);
+    }
+
+    private static void await(CountDownLatch latch) throws IOException {
+        try {
+            if (!latch.await(5, TimeUnit.SECONDS)) {
+                throw new IOException("Timed out");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+
+        final List<OccupancyEvent> events = new CopyOnWriteArrayList<>();
+        Runnable completionCallback;
+
+        @Override
+        public synchronized void onCompletion(Runnable callback) {
+            completionCallback = callback;
+            super.onCompletion(callback);
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            beforeSend();
+            for (DataWithMediaType data : builder.build()) {
+                if (data.getData() instanceof OccupancyEvent event) {
+                    events.add(event);
+                }
+            }
+        }
+
+        protected void beforeSend() throws IOException {
+        }
+
+        void awaitEvents(int count) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (events.size() < count && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(count, events.size());
+        }
+    }
+}
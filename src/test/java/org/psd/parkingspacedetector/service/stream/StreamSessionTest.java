@@ -0,0 +1,116 @@
+package org.psd.parkingspacedetector.service.stream;
+
+import nu.pattern.OpenCV;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Scalar;
+import org.opencv.core.Size;
+import org.opencv.videoio.VideoWriter;
+import org.psd.parkingspacedetector.dto.request.ParkingSlotDetail;
+import org.psd.parkingspacedetector.dto.request.PointInfo;
+import org.psd.parkingspacedetector.service.FramePredictions;
+import org.psd.parkingspacedetector.service.layout.SlotLayout;
+import org.psd.parkingspacedetector.service.metrics.PipelineMeters;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StreamSessionTest {
+
+    @BeforeAll
+    static void loadOpenCV() {
+        OpenCV.loadLocally();
+    }
+
+    @Test
+    void loopsLocalFileAndPublishesStateChanges() throws Exception {
+        Path video = writeVideo(10, 10);
+        SlotLayout slotLayout = SlotLayout.fromSlotDetails(List.of(new ParkingSlotDetail(7, null, List.of(
+                new PointInfo(1, 0.0, 0.0, 10.0, 10.0),
+                new PointInfo(2, 0.0, 0.0, 60.0, 10.0),
+                new PointInfo(3, 0.0, 0.0, 60.0, 40.0),
+                new PointInfo(4, 0.0, 0.0, 10.0, 40.0)))));
+
+        BlockingQueue<OccupancyEvent> events = new LinkedBlockingQueue<>();
+        StreamSession session = new StreamSession(1L, 2L, 3L, video.toString(), slotLayout,
+                frame -> new FramePredictions(new double[]{Core.mean(frame).val[0] > 128 ? 1.0 : 0.0}, new double[]{1.0}),
+                events::add, PipelineMeters.NONE, 0, 10, 0);
+        Thread worker = new Thread(session);
+        worker.start();
+
+        List<OccupancyEvent> received = new ArrayList<>();
+        try {
+            for (int i = 0; i < 4; i++) {
+                OccupancyEvent event = events.poll(30, TimeUnit.SECONDS);
+                assertNotNull(event, "no occupancy change published");
+                received.add(event);
+            }
+        } finally {
+            session.stop();
+            worker.join(TimeUnit.SECONDS.toMillis(10));
+            Files.deleteIfExists(video);
+        }
+
+        assertFalse(worker.isAlive());
+        assertFalse(session.isRunning());
+        for (int i = 0; i < received.size(); i++) {
+            assertEquals(Long.valueOf(3L), received.get(i).layoutId());
+            assertEquals(7, received.get(i).slotIndex());
+            assertEquals(i % 2 == 1, received.get(i).occupied(), "event " + i);
+        }
+        assertTrue(session.toDto().framesAnalysed() > 20, "stream did not loop past the end of the file");
+    }
+
+    @Test
+    void stopsAfterRepeatedFailedAttempts() throws Exception {
+        Path missing = Files.createTempDirectory("stream-session").resolve("missing.avi");
+        SlotLayout slotLayout = SlotLayout.fromSlotDetails(List.of(new ParkingSlotDetail(7, null, List.of(
+                new PointInfo(1, 0.0, 0.0, 10.0, 10.0),
+                new PointInfo(2, 0.0, 0.0, 60.0, 10.0),
+                new PointInfo(3, 0.0, 0.0, 60.0, 40.0),
+                new PointInfo(4, 0.0, 0.0, 10.0, 40.0)))));
+
+        StreamSession session = new StreamSession(1L, 2L, 3L, missing.toString(), slotLayout,
+                frame -> FramePredictions.EMPTY, event -> { }, PipelineMeters.NONE, 0, 10, 3);
+        Thread worker = new Thread(session);
+        long start = System.nanoTime();
+        worker.start();
+        worker.join(TimeUnit.SECONDS.toMillis(10));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        Files.deleteIfExists(missing.getParent());
+
+        assertFalse(worker.isAlive());
+        assertFalse(session.isRunning());
+        // backed off 10 ms, then 20 ms, between the three attempts
+        assertTrue(elapsedMillis >= 30, "reconnected after " + elapsedMillis + " ms");
+    }
+
+    private static Path writeVideo(int darkFrames, int brightFrames) throws Exception {
+        Path video = Files.createTempFile("stream-session", ".avi");
+        VideoWriter writer = new VideoWriter(video.toString(), VideoWriter.fourcc('M', 'J', 'P', 'G'), 25, new Size(64, 48));
+        assertTrue(writer.isOpened(), "failed to create test video");
+        try {
+            for (int i = 0; i < darkFrames + brightFrames; i++) {
+                Mat frame = new Mat(48, 64, CvType.CV_8UC3, i < darkFrames ? new Scalar(20, 20, 20) : new Scalar(230, 230, 230));
+                writer.write(frame);
+                frame.release();
+            }
+        } finally {
+            writer.release();
+        }
+        return video;
+    }
+}
@@ -0,0 +1,124 @@
+package org.psd.parkingspacedetector.service.svm;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.psd.parkingspacedetector.service.FramePredictions;
+import org.psd.parkingspacedetector.service.ImageProcessingService;
+import org.psd.parkingspacedetector.service.feature.FeatureExtractor;
+import weka.classifiers.functions.SMO;
+import weka.classifiers.functions.supportVector.PolyKernel;
+import weka.classifiers.functions.supportVector.RBFKernel;
+import weka.core.DenseInstance;
+import weka.core.Instances;
+import weka.core.SelectedTag;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompactSvmModelTest {
+
+    private static final int TRAINING_ROWS = 400;
+
+    private Path modelPath;
+
+    @AfterEach
+    void deleteModel() throws Exception {
+        if (modelPath != null) {
+            Files.deleteIfExists(modelPath);
+        }
+    }
+
+    @Test
+    void linearModelMatchesSmoOnTrainingSet() throws Exception {
+        assertParity(new SMO(), 1);
+    }
+
+    @Test
+    void unfilteredLinearModelMatchesSmoOnTrainingSet() throws Exception {
+        SMO model = new SMO();
+        model.setFilterType(new SelectedTag(SMO.FILTER_NONE, SMO.TAGS_FILTER));
+        assertParity(model, 2);
+    }
+
+    @Test
+    void polynomialKernelModelMatchesSmoOnTrainingSet() throws Exception {
+        SMO model = new SMO();
+        PolyKernel kernel = new PolyKernel();
+        kernel.setExponent(2);
+        kernel.setUseLowerOrder(true);
+        model.setKernel(kernel);
+        assertParity(model, 3);
+    }
+
+    @Test
+    void rbfKernelModelMatchesSmoOnTrainingSet() throws Exception {
+        SMO model = new SMO();
+        RBFKernel kernel = new RBFKernel();
+        kernel.setGamma(2.5);
+        model.setKernel(kernel);
+        assertParity(model, 4);
+    }
+
+    @Test
+    void calibratedModelHasNoCompactForm() throws Exception {
+        SMO model = new SMO();
+        model.setBuildCalibrationModels(true);
+        Instances data = trainingSet(5);
+        model.buildClassifier(data);
+        modelPath = Files.createTempFile("calibrated", ".psdm");
+        assertFalse(CompactSvmModel.write(model, modelPath));
+    }
+
+    @Test
+    void rejectsOtherFiles() throws Exception {
+        modelPath = Files.createTempFile("not-a-model", ".psdm");
+        Files.write(modelPath, new byte[128]);
+        assertThrows(RuntimeException.class, () -> MappedSvmPredictor.open(modelPath));
+    }
+
+    @Test
+    void compactPathReplacesModelExtension() {
+        assertEquals("/data/ParkingSlotModel_7.psdm", CompactSvmModel.pathFor("/data/ParkingSlotModel_7.model"));
+    }
+
+    private void assertParity(SMO model, long seed) throws Exception {
+        Instances data = trainingSet(seed);
+        model.buildClassifier(data);
+        modelPath = Files.createTempFile("compact", ".psdm");
+        assertTrue(CompactSvmModel.write(model, modelPath));
+
+        double[] features = new double[data.numInstances() * FeatureExtractor.FEATURE_COUNT];
+        for (int i = 0; i < data.numInstances(); i++) {
+            for (int f = 0; f < FeatureExtractor.FEATURE_COUNT; f++) {
+                features[i * FeatureExtractor.FEATURE_COUNT + f] = data.instance(i).value(f);
+            }
+        }
+        FramePredictions actual = MappedSvmPredictor.open(modelPath).predict(features, data.numInstances());
+        for (int i = 0; i < data.numInstances(); i++) {
+            assertEquals(model.classifyInstance(data.instance(i)), actual.predictions()[i], 0.0, "instance " + i);
+        }
+    }
+
+    private static Instances trainingSet(long seed) {
+        Random random = new Random(seed);
+        Instances data = new Instances("ParkingSlotTrain", new ArrayList<>(ImageProcessingService.createAttributes()), TRAINING_ROWS);
+        data.setClassIndex(data.numAttributes() - 1);
+        for (int i = 0; i < TRAINING_ROWS; i++) {
+            double[] values = new double[data.numAttributes()];
+            for (int f = 0; f < FeatureExtractor.FEATURE_COUNT; f++) {
+                values[f] = (random.nextDouble() - 0.5) * 0.2;
+            }
+            double score = values[0] * values[1] * 40 + values[4] - 0.5 * values[7] + random.nextGaussian() * 0.01;
+            values[values.length - 1] = score > 0 ? 1 : 0;
+            data.add(new DenseInstance(1.0, values));
+        }
+        return data;
+    }
+}
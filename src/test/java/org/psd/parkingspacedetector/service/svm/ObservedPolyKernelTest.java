@@ -0,0 +1,86 @@
+package org.psd.parkingspacedetector.service.svm;
+
+import org.junit.jupiter.api.Test;
+import org.psd.parkingspacedetector.service.ImageProcessingService;
+import org.psd.parkingspacedetector.service.TrainingProgressListener;
+import org.psd.parkingspacedetector.service.feature.FeatureExtractor;
+import weka.classifiers.functions.SMO;
+import weka.classifiers.functions.supportVector.PolyKernel;
+import weka.core.DenseInstance;
+import weka.core.Instances;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ObservedPolyKernelTest {
+
+    private static final int TRAINING_ROWS = 2000;
+
+    @Test
+    void observedModelMatchesPlainSmo() throws Exception {
+        Instances data = trainingSet();
+        SMO plainModel = new SMO();
+        plainModel.buildClassifier(data);
+
+        AtomicLong evaluations = new AtomicLong();
+        SMO observedModel = new SMO();
+        ObservedPolyKernel.buildClassifier(observedModel, data, new TrainingProgressListener() {
+            @Override
+            public void onKernelEvaluations(long count) {
+                evaluations.set(count);
+            }
+        });
+
+        assertTrue(evaluations.get() > 0);
+        assertEquals(PolyKernel.class, observedModel.getKernel().getClass());
+        assertEquals(plainModel.bias()[0][1], observedModel.bias()[0][1], 0.0);
+        for (int i = 0; i < data.numInstances(); i++) {
+            assertEquals(plainModel.classifyInstance(data.instance(i)), observedModel.classifyInstance(data.instance(i)), 0.0,
+                    "instance " + i);
+        }
+
+        Path modelPath = Files.createTempFile("observed", ".psdm");
+        try {
+            assertTrue(CompactSvmModel.write(observedModel, modelPath));
+        } finally {
+            Files.deleteIfExists(modelPath);
+        }
+    }
+
+    @Test
+    void cancellationStopsTraining() {
+        Instances data = trainingSet();
+        SMO model = new SMO();
+        assertThrows(CancellationException.class, () -> ObservedPolyKernel.buildClassifier(model, data, new TrainingProgressListener() {
+            @Override
+            public boolean isCancelled() {
+                return true;
+            }
+        }));
+        assertEquals(PolyKernel.class, model.getKernel().getClass());
+    }
+
+    private static Instances trainingSet() {
+        Random random = new Random(17);
+        Instances data = new Instances("ParkingSlotTrain", new ArrayList<>(ImageProcessingService.createAttributes()), TRAINING_ROWS);
+        data.setClassIndex(data.numAttributes() - 1);
+        for (int i = 0; i < TRAINING_ROWS; i++) {
+            double[] values = new double[data.numAttributes()];
+            for (int f = 0; f < FeatureExtractor.FEATURE_COUNT; f++) {
+                values[f] = (random.nextDouble() - 0.5) * 0.2;
+            }
+            double score = values[0] + values[4] - 0.5 * values[7] + random.nextGaussian() * 0.02;
+            values[values.length - 1] = score > 0 ? 1 : 0;
+            data.add(new DenseInstance(1.0, values));
+        }
+        return data;
+    }
+}
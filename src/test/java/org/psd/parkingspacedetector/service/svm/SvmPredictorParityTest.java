@@ -0,0 +1,113 @@
+package org.psd.parkingspacedetector.service.svm;
+
+import org.junit.jupiter.api.Test;
+import org.psd.parkingspacedetector.service.FramePredictions;
+import org.psd.parkingspacedetector.service.ImageProcessingService;
+import org.psd.parkingspacedetector.service.feature.FeatureExtractor;
+import weka.classifiers.functions.SMO;
+import weka.classifiers.functions.supportVector.RBFKernel;
+import weka.core.DenseInstance;
+import weka.core.Instances;
+import weka.core.SelectedTag;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SvmPredictorParityTest {
+
+    private static final int ROWS = 5000;
+
+    @Test
+    void normalizedLinearModelMatchesWeka() throws Exception {
+        assertLinearParity(train(new SMO(), 1));
+    }
+
+    @Test
+    void unfilteredLinearModelMatchesWeka() throws Exception {
+        SMO model = new SMO();
+        model.setFilterType(new SelectedTag(SMO.FILTER_NONE, SMO.TAGS_FILTER));
+        assertLinearParity(train(model, 2));
+    }
+
+    @Test
+    void otherModelsFallBackToWeka() throws Exception {
+        SMO model = new SMO();
+        model.setKernel(new RBFKernel());
+        assertInstanceOf(WekaSvmPredictor.class, SvmPredictor.of(train(model, 3)));
+
+        SMO calibrated = new SMO();
+        calibrated.setBuildCalibrationModels(true);
+        assertInstanceOf(WekaSvmPredictor.class, SvmPredictor.of(train(calibrated, 4)));
+    }
+
+    @Test
+    void sharedWekaPredictorGivesTheSameResultsAcrossThreads() throws Exception {
+        SMO model = new SMO();
+        model.setKernel(new RBFKernel());
+        SvmPredictor predictor = SvmPredictor.of(train(model, 5));
+
+        double[] features = randomFeatures(500, new Random(43), 0.3);
+        FramePredictions expected = predictor.predict(features, 500);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<FramePredictions>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> predictor.predict(features, 500)));
+            }
+            for (Future<FramePredictions> result : results) {
+                assertArrayEquals(expected.predictions(), result.get().predictions(), 0.0);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void assertLinearParity(SMO model) {
+        SvmPredictor predictor = SvmPredictor.of(model);
+        assertInstanceOf(LinearSvmPredictor.class, predictor);
+
+        double[] features = randomFeatures(ROWS, new Random(42), 0.3);
+        FramePredictions expected = new WekaSvmPredictor(model).predict(features, ROWS);
+        FramePredictions actual = predictor.predict(features, ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            assertEquals(expected.predictions()[i], actual.predictions()[i], 0.0, "row " + i);
+            assertTrue(actual.confidences()[i] >= 0.5 && actual.confidences()[i] < 1.0, "confidence of row " + i);
+        }
+    }
+
+    private static SMO train(SMO model, long seed) throws Exception {
+        Random random = new Random(seed);
+        Instances data = new Instances("ParkingSlotTrain", new ArrayList<>(ImageProcessingService.createAttributes()), 0);
+        data.setClassIndex(data.numAttributes() - 1);
+        double[] features = randomFeatures(300, random, 0.2);
+        for (int i = 0; i < 300; i++) {
+            double[] values = new double[data.numAttributes()];
+            System.arraycopy(features, i * FeatureExtractor.FEATURE_COUNT, values, 0, FeatureExtractor.FEATURE_COUNT);
+            // A constant feature, which normalization maps to zero.
+            values[8] = 0.05;
+            double score = values[0] + 0.5 * values[4] - values[6] + random.nextGaussian() * 0.02;
+            values[values.length - 1] = score > 0 ? 1 : 0;
+            data.add(new DenseInstance(1.0, values));
+        }
+        model.buildClassifier(data);
+        return model;
+    }
+
+    private static double[] randomFeatures(int rows, Random random, double range) {
+        double[] features = new double[rows * FeatureExtractor.FEATURE_COUNT];
+        for (int i = 0; i < features.length; i++) {
+            features[i] = (random.nextDouble() - 0.5) * range;
+        }
+        return features;
+    }
+}
@@ -0,0 +1,132 @@
+package org.psd.parkingspacedetector.service.upload;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChunkedUploadTest {
+
+    private static final int CONTENT_SIZE = 5_000_000;
+
+    private Path partFile;
+
+    @AfterEach
+    void deletePartFile() throws IOException {
+        if (partFile != null) {
+            Files.deleteIfExists(partFile);
+        }
+    }
+
+    @Test
+    void chunksAreWrittenAndHashedInOrder() throws Exception {
+        byte[] content = content();
+        ChunkedUpload upload = newUpload((long) content.length);
+
+        int[] boundaries = {0, 1_000_000, 1_000_001, 3_500_000, content.length};
+        for (int i = 0; i + 1 < boundaries.length; i++) {
+            assertTrue(upload.append(boundaries[i], chunk(content, boundaries[i], boundaries[i + 1])));
+        }
+
+        assertEquals(sha256(content), upload.finish());
+        assertArrayEquals(content, Files.readAllBytes(partFile));
+    }
+
+    @Test
+    void misplacedChunkIsRejected() throws Exception {
+        byte[] content = content();
+        ChunkedUpload upload = newUpload((long) content.length);
+        assertTrue(upload.append(0, chunk(content, 0, 1000)));
+
+        assertFalse(upload.append(500, chunk(content, 500, 2000)));
+        assertFalse(upload.append(2000, chunk(content, 2000, 3000)));
+        assertEquals(1000, upload.getReceived());
+    }
+
+    @Test
+    void interruptedChunkResumesFromReceivedBytes() throws Exception {
+        byte[] content = content();
+        ChunkedUpload upload = newUpload((long) content.length);
+        InputStream dropped = new FailingInputStream(Arrays.copyOfRange(content, 0, 2_500_000), 1_300_000);
+
+        assertThrows(IOException.class, () -> upload.append(0, Channels.newChannel(dropped)));
+        long received = upload.getReceived();
+        assertTrue(received > 0 && received <= 1_300_000, "received " + received);
+
+        assertTrue(upload.append(received, chunk(content, (int) received, content.length)));
+        assertEquals(sha256(content), upload.finish());
+        assertArrayEquals(content, Files.readAllBytes(partFile));
+    }
+
+    @Test
+    void incompleteOrOversizedUploadsFail() throws Exception {
+        byte[] content = content();
+        ChunkedUpload upload = newUpload(1000L);
+        assertTrue(upload.append(0, chunk(content, 0, 400)));
+        assertThrows(RuntimeException.class, upload::finish);
+        assertThrows(RuntimeException.class, () -> upload.append(400, chunk(content, 400, 1400)));
+    }
+
+    private ChunkedUpload newUpload(Long size) throws IOException {
+        partFile = Files.createTempFile("upload", ".part");
+        return new ChunkedUpload("test", "video.mp4", null, size, partFile);
+    }
+
+    private static byte[] content() {
+        byte[] content = new byte[CONTENT_SIZE];
+        new Random(21).nextBytes(content);
+        return content;
+    }
+
+    private static ReadableByteChannel chunk(byte[] content, int from, int to) {
+        return Channels.newChannel(new ByteArrayInputStream(content, from, to - from));
+    }
+
+    private static String sha256(byte[] content) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+    }
+
+    private static final class FailingInputStream extends InputStream {
+        private final ByteArrayInputStream delegate;
+        private int remaining;
+
+        private FailingInputStream(byte[] content, int failAfter) {
+            this.delegate = new ByteArrayInputStream(content);
+            this.remaining = failAfter;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining-- <= 0) {
+                throw new IOException("Connection reset");
+            }
+            return delegate.read();
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (remaining <= 0) {
+                throw new IOException("Connection reset");
+            }
+            int read = delegate.read(buffer, offset, Math.min(length, remaining));
+            remaining -= read;
+            return read;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package org.psd.parkingspacedetector.service.upload;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.psd.parkingspacedetector.configuration.MediaConfig;
+import org.psd.parkingspacedetector.entity.Media;
+import org.psd.parkingspacedetector.service.MediaService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UploadServiceTest {
+
+    @TempDir
+    Path uploadDir;
+
+    private UploadService uploadService;
+
+    @BeforeEach
+    void createService() {
+        MediaConfig mediaConfig = new MediaConfig();
+        ReflectionTestUtils.setField(mediaConfig, "uploadBaseDir", uploadDir.toString());
+        uploadService = new UploadService(mediaConfig, null);
+    }
+
+    @Test
+    void idleUploadsExpireWithTheirPartFiles() throws Exception {
+        ChunkedUpload idle = uploadService.begin("idle.mp4", 1L, 10L);
+        uploadService.append(idle, 0, new ByteArrayInputStream(new byte[4]));
+        long cutoff = System.currentTimeMillis() + 1;
+        Thread.sleep(5);
+        ChunkedUpload active = uploadService.begin("active.mp4", 1L, 10L);
+        uploadService.append(active, 0, new ByteArrayInputStream(new byte[4]));
+
+        uploadService.expireIdleUploads(cutoff);
+
+        assertTrue(uploadService.getUpload(idle.getId()).isEmpty());
+        assertFalse(Files.exists(idle.getPartFile()));
+        assertTrue(uploadService.getUpload(active.getId()).isPresent());
+        assertTrue(Files.exists(active.getPartFile()));
+    }
+
+    @Test
+    void failedSaveKeepsTheUploadForARetry() throws Exception {
+        MediaConfig mediaConfig = new MediaConfig();
+        ReflectionTestUtils.setField(mediaConfig, "uploadBaseDir", uploadDir.toString());
+        AtomicInteger saves = new AtomicInteger();
+        MediaService mediaService = new MediaService(null, mediaConfig, null) {
+            @Override
+            public Optional<Media> findUpload(String contentHash, Long refId) {
+                return Optional.empty();
+            }
+
+            @Override
+            public Media saveUpload(File destinationFile, Long refId, String contentHash) {
+                if (saves.incrementAndGet() == 1) {
+                    throw new IllegalStateException("database unavailable");
+                }
+                return Media.builder().path(destinationFile.getName()).refId(refId).contentHash(contentHash).build();
+            }
+        };
+        UploadService service = new UploadService(mediaConfig, mediaService);
+        ChunkedUpload upload = service.begin("clip.mp4", 1L, 4L);
+        service.append(upload, 0, new ByteArrayInputStream(new byte[]{1, 2, 3, 4}));
+
+        assertThrows(IllegalStateException.class, () -> service.complete(upload));
+        assertTrue(service.getUpload(upload.getId()).isPresent());
+        assertTrue(Files.exists(upload.getPartFile()));
+        assertFalse(Files.exists(uploadDir.resolve("clip.mp4")));
+
+        UploadService.UploadResult result = service.complete(upload);
+        assertFalse(result.duplicate());
+        assertEquals(upload.finish(), result.media().getContentHash());
+        assertTrue(Files.exists(uploadDir.resolve("clip.mp4")));
+        assertTrue(service.getUpload(upload.getId()).isEmpty());
+    }
+
+    @Test
+    void orphanedPartFilesAreDeleted() throws Exception {
+        Path partDirectory = Files.createDirectories(uploadDir.resolve(".uploads"));
+        Path orphan = Files.write(partDirectory.resolve("left-by-restart.part"), new byte[4]);
+        Files.setLastModifiedTime(orphan, FileTime.fromMillis(System.currentTimeMillis() - 60_000));
+        Path recent = Files.write(partDirectory.resolve("recent.part"), new byte[4]);
+
+        uploadService.expireIdleUploads(System.currentTimeMillis() - 30_000);
+
+        assertFalse(Files.exists(orphan));
+        assertTrue(Files.exists(recent));
+    }
+}